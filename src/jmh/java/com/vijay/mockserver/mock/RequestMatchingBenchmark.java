@@ -0,0 +1,81 @@
+package com.vijay.mockserver.mock;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * {@link RequestMatchingService#findBestMatch} over the candidates of one
+ * endpoint, where only the lowest-priority candidate matches, so every rule
+ * of every candidate is evaluated. Each call wraps the request anew, as
+ * serving does, so body rules pay for reading the body once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestMatchingBenchmark {
+
+    @Param({"1", "10", "1000"})
+    public int candidates;
+
+    /** Which kind of rule tells the candidates apart. */
+    @Param({"headers", "query", "body"})
+    public String rule;
+
+    private RequestMatchingService matching;
+    private MockRoute[] routes;
+    private MockHttpServletRequest template;
+
+    @Setup
+    public void setUp() {
+        matching = new RequestMatchingService(new ObjectMapper());
+        routes = new MockRoute[candidates];
+        for (int i = 0; i < candidates; i++) {
+            MockEndpoint row = new MockEndpoint();
+            row.setId((long) i + 1);
+            row.setMethod("POST");
+            row.setEndpoint("/api/orders");
+            row.setPriority(candidates - i);
+            row.setIsActive(true);
+            String tenant = "tenant-" + i;
+            switch (rule) {
+                case "headers" -> row.setRequestHeaders("{\"X-Tenant\":\"" + tenant + "\"}");
+                case "query" -> row.setQueryParameters("{\"tenant\":\"" + tenant + "\"}");
+                default -> row.setRequestBodyPattern("{\"order\":{\"tenant\":\"" + tenant + "\"}}");
+            }
+            // Matching never touches the body store or the serving meters
+            routes[i] = new MockRoute(row, matching.compileOrNever(row), LatencyProfile.fixed(0), null, null);
+        }
+        String last = "tenant-" + (candidates - 1);
+        template = new MockHttpServletRequest("POST", "/mock/api/orders");
+        template.addHeader("X-Tenant", last);
+        template.addHeader("User-Agent", "jmh");
+        template.setParameter("tenant", last);
+        template.setContentType("application/json");
+        template.setContent(("{\"order\":{\"id\":42,\"tenant\":\"" + last + "\",\"items\":[1,2,3]}}")
+                .getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public Optional<MockRoute> findBestMatch() {
+        return matching.findBestMatch(routes, new CachedBodyRequest(template));
+    }
+}
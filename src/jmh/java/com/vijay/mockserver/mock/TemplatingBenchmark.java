@@ -0,0 +1,75 @@
+package com.vijay.mockserver.mock;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Rendering a response template with request and body helpers, for a small
+ * body and for a body padded to about 1 MB: once through
+ * {@link TemplatingService#processTemplateWithRequest}, which compiles on
+ * every call, and once from a template compiled ahead as serving does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemplatingBenchmark {
+
+    /** Approximate template size in bytes. */
+    @Param({"256", "1048576"})
+    public int size;
+
+    private TemplatingService templating;
+    private String source;
+    private ResponseTemplate compiled;
+    private MockHttpServletRequest template;
+
+    @Setup
+    public void setUp() {
+        templating = new TemplatingService(new ObjectMapper());
+        StringBuilder body = new StringBuilder("{\"id\":\"{{uuid}}\",\"at\":{{timestamp}},"
+                + "\"method\":\"{{request.method}}\",\"path\":\"{{request.path}}\","
+                + "\"tenant\":\"{{headers.X-Tenant}}\",\"order\":\"{{request.body.order.id}}\",\"items\":[");
+        // Literal padding with a helper every ~100 bytes, so large bodies are not one long literal
+        for (int i = 0; body.length() < size; i++) {
+            body.append(i == 0 ? "" : ",")
+                    .append("{\"n\":").append(i)
+                    .append(",\"label\":\"item-{{random 1 1000}}\",\"note\":\"lorem ipsum dolor sit amet\"}");
+        }
+        body.append("]}");
+        source = body.toString();
+        compiled = templating.compile(source);
+
+        template = new MockHttpServletRequest("POST", "/mock/api/orders");
+        template.addHeader("X-Tenant", "tenant-1");
+        template.setContentType("application/json");
+        template.setContent("{\"order\":{\"id\":42,\"items\":[1,2,3]}}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public String processTemplate() {
+        return templating.processTemplateWithRequest(source, new CachedBodyRequest(template));
+    }
+
+    @Benchmark
+    public byte[] renderCompiled() {
+        return compiled.render(new CachedBodyRequest(template)).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,82 @@
+package com.vijay.mockserver.security;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Per-request cost of validating a bearer token: the previous implementation
+ * (key derivation and a full parse per claim), a single verified parse, and a
+ * verified-token cache hit, plus {@link JwtService#isTokenValid} as called
+ * for an already known user.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private static final String SECRET = "c3ByaW5nLWJvb3QtZGV2LXNlY3JldC1rZXktMzJieXRlc2Jhc2U2NA==";
+
+    private JwtService cached;
+    private JwtService uncached;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cached = new JwtService(SECRET, 3_600_000, 10_000, new SimpleMeterRegistry());
+        uncached = new JwtService(SECRET, 3_600_000, 0, new SimpleMeterRegistry());
+        token = cached.generateToken("developer");
+    }
+
+    /**
+     * What the filter used to do: extractUsername, then isTokenValid
+     * (extractUsername + extractExpiration), each rebuilding key and parser.
+     */
+    @Benchmark
+    public boolean legacyTripleParse() {
+        String username = legacyClaims(token).getSubject();
+        return legacyClaims(token).getSubject().equals(username)
+                && !legacyClaims(token).getExpiration().before(new Date());
+    }
+
+    @Benchmark
+    public Optional<JwtService.VerifiedToken> singleParse() {
+        return uncached.verify(token);
+    }
+
+    @Benchmark
+    public Optional<JwtService.VerifiedToken> cachedVerify() {
+        return cached.verify(token);
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return cached.isTokenValid(token, "developer");
+    }
+
+    private static Claims legacyClaims(String token) {
+        Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+    }
+}
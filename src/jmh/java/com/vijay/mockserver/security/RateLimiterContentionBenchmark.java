@@ -0,0 +1,79 @@
+package com.vijay.mockserver.security;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.util.concurrent.RateLimiter;
+
+/**
+ * Rate limit checks from 64 threads, either all on one hot key (one busy
+ * user) or each on its own key (many clients), comparing the previous
+ * per-key Guava {@link RateLimiter} with the CAS token buckets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(64)
+@Fork(1)
+public class RateLimiterContentionBenchmark {
+
+    /** Requests per minute; the default user quota and one that never runs dry. */
+    @Param({"100", "1000000"})
+    public int limit;
+
+    private final Map<String, RateLimiter> guava = new ConcurrentHashMap<>();
+    private TokenBucketLimiter buckets;
+
+    @Setup
+    public void setUp() {
+        guava.clear();
+        buckets = new TokenBucketLimiter(100_000);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadKey {
+        private static final AtomicInteger NEXT = new AtomicInteger();
+        final String key = "ip:10.0.0." + NEXT.incrementAndGet();
+    }
+
+    @Benchmark
+    public boolean guavaHotKey() {
+        return guava("user:1").tryAcquire();
+    }
+
+    @Benchmark
+    public boolean bucketHotKey() {
+        return buckets.tryAcquire("user:1", limit).allowed();
+    }
+
+    @Benchmark
+    public boolean guavaKeyPerThread(ThreadKey thread) {
+        return guava(thread.key).tryAcquire();
+    }
+
+    @Benchmark
+    public boolean bucketKeyPerThread(ThreadKey thread) {
+        return buckets.tryAcquire(thread.key, limit).allowed();
+    }
+
+    private RateLimiter guava(String key) {
+        return guava.computeIfAbsent(key, k -> RateLimiter.create(limit / 60.0));
+    }
+}
@@ -0,0 +1,83 @@
+package com.vijay.mockserver.security;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vijay.mockserver.user.User;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * {@link RateLimitingService#isAllowed(User)} as the filter calls it: from a
+ * single thread, from 64 threads on one user, and from 64 threads each with
+ * their own user. Users get the largest quota the limiter supports; a hot
+ * user can still drain it, after which calls measure the rejection path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateLimitingServiceBenchmark {
+
+    private static final int QUOTA = TokenBucketLimiter.MAX_CAPACITY;
+
+    private RateLimitingService service;
+    private User shared;
+
+    @Setup
+    public void setUp() {
+        service = new RateLimitingService(60, 100_000, 30_000, new SimpleMeterRegistry());
+        shared = user(1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadUser {
+        private static final AtomicLong NEXT = new AtomicLong(1000);
+        final User user = user(NEXT.incrementAndGet());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean uncontended() {
+        return service.isAllowed(shared);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public boolean contendedOneUser() {
+        return service.isAllowed(shared);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public boolean userPerThread(ThreadUser thread) {
+        return service.isAllowed(thread.user);
+    }
+
+    private static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setRateLimitPerMinute(QUOTA);
+        return user;
+    }
+}
@@ -0,0 +1,132 @@
+package com.vijay.mockserver.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Closed-loop HTTP load: a fixed number of requests is kept in flight, and
+ * each completion immediately sends the next. Latency is measured from send
+ * to the last body byte, in microseconds. Being closed-loop, a stalled server
+ * also slows the client down, so tail latencies are those seen by callers
+ * that wait, not by an open arrival stream.
+ */
+final class LoadDriver implements AutoCloseable {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final URI base;
+    private final List<String> tokens;
+    private final int mocksPerUser;
+    private final ExecutorService executor;
+    private final HttpClient client;
+
+    LoadDriver(URI base, List<String> tokens, int mocksPerUser, int clientThreads) {
+        this.base = base;
+        this.tokens = tokens;
+        this.mocksPerUser = mocksPerUser;
+        AtomicInteger next = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(clientThreads, r -> {
+            Thread t = new Thread(r, ServerAllocation.CLIENT_THREAD_PREFIX + "client-" + next.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(executor)
+                .build();
+    }
+
+    /**
+     * Run a scenario for the given time with {@code concurrency} requests in flight.
+     */
+    Result run(Scenario scenario, Duration duration, int concurrency) throws InterruptedException {
+        Result result = new Result(scenario);
+        CountDownLatch drained = new CountDownLatch(concurrency);
+        long deadline = System.nanoTime() + duration.toNanos();
+        long allocatedBefore = ServerAllocation.allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < concurrency; i++) {
+            send(scenario, result, deadline, drained);
+        }
+        drained.await();
+        result.elapsedNanos = System.nanoTime() - start;
+        result.allocatedBytes = ServerAllocation.allocatedBytes() - allocatedBefore;
+        return result;
+    }
+
+    private void send(Scenario scenario, Result result, long deadline, CountDownLatch drained) {
+        if (System.nanoTime() - deadline >= 0) {
+            drained.countDown();
+            return;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        RequestKind kind = scenario.next();
+        HttpRequest request = kind.build(base, tokens.get(random.nextInt(tokens.size())),
+                random.nextInt(kind.endpoints(mocksPerUser)));
+        long sent = System.nanoTime();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            long micros = (System.nanoTime() - sent) / 1000;
+            result.record(kind, micros, error == null && response.statusCode() < 400);
+            send(scenario, result, deadline, drained);
+        });
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Latencies and counts of one scenario run, per request kind.
+     */
+    static final class Result {
+
+        final Scenario scenario;
+        final Map<RequestKind, Histogram> latencies = new EnumMap<>(RequestKind.class);
+        final Map<RequestKind, AtomicLong> errors = new EnumMap<>(RequestKind.class);
+        long elapsedNanos;
+        long allocatedBytes;
+
+        Result(Scenario scenario) {
+            this.scenario = scenario;
+            for (RequestKind kind : scenario.kinds()) {
+                latencies.put(kind, new ConcurrentHistogram(MAX_LATENCY_MICROS, 3));
+                errors.put(kind, new AtomicLong());
+            }
+        }
+
+        void record(RequestKind kind, long micros, boolean ok) {
+            latencies.get(kind).recordValue(Math.min(Math.max(micros, 1), MAX_LATENCY_MICROS));
+            if (!ok) {
+                errors.get(kind).incrementAndGet();
+            }
+        }
+
+        Histogram total() {
+            Histogram total = new Histogram(MAX_LATENCY_MICROS, 3);
+            latencies.values().forEach(total::add);
+            return total;
+        }
+
+        long errorCount() {
+            return errors.values().stream().mapToLong(AtomicLong::get).sum();
+        }
+    }
+}
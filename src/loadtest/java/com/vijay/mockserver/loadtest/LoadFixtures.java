@@ -0,0 +1,91 @@
+package com.vijay.mockserver.loadtest;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.context.ApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vijay.mockserver.mock.ImportExportService;
+import com.vijay.mockserver.mock.dto.MockEndpointRequest;
+import com.vijay.mockserver.security.JwtService;
+import com.vijay.mockserver.user.User;
+import com.vijay.mockserver.user.UserRepository;
+
+/**
+ * Seeds load test users and their mocks like {@code DataSeeder} does, but
+ * in bulk: each user's mocks go through the import path, so bodies, heads
+ * and the route table end up exactly as for mocks created over the API.
+ */
+final class LoadFixtures {
+
+    private final UserRepository userRepository;
+    private final ImportExportService importExportService;
+    private final PasswordEncoder passwordEncoder;
+    private final JwtService jwtService;
+    private final ObjectMapper objectMapper;
+
+    LoadFixtures(ApplicationContext context) {
+        this.userRepository = context.getBean(UserRepository.class);
+        this.importExportService = context.getBean(ImportExportService.class);
+        this.passwordEncoder = context.getBean(PasswordEncoder.class);
+        this.jwtService = context.getBean(JwtService.class);
+        this.objectMapper = context.getBean(ObjectMapper.class);
+    }
+
+    /**
+     * Create {@code users} users with {@code mocksPerUser} endpoints each,
+     * dealt out over the {@link RequestKind}s in turn.
+     *
+     * @return a bearer token per user
+     */
+    List<String> seed(int users, int mocksPerUser, int delayMs) {
+        String password = passwordEncoder.encode("load123"); // hashing is slow; one hash serves all
+        List<String> tokens = new ArrayList<>(users);
+        for (int u = 0; u < users; u++) {
+            User user = new User();
+            user.setUsername("load-" + u);
+            user.setEmail("load-" + u + "@example.com");
+            user.setPassword(password);
+            user.setRole(User.Role.USER);
+            user.setRateLimitPerMinute(Integer.MAX_VALUE); // the limiter caps this at its largest quota
+            user = userRepository.save(user);
+
+            List<MockEndpointRequest> mocks = new ArrayList<>();
+            for (RequestKind kind : RequestKind.values()) {
+                for (int i = 0; i < kind.endpoints(mocksPerUser); i++) {
+                    mocks.addAll(kind.mocks(i, delayMs));
+                }
+            }
+            // The import runs as its owner, as it would behind the API
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken(user.getUsername(), null, List.of()));
+            ImportExportService.ImportResult result;
+            try {
+                result = importExportService.importMocks(user, new ByteArrayInputStream(toJson(Map.of("mocks", mocks))));
+            } finally {
+                SecurityContextHolder.clearContext();
+            }
+            if (result.getErrorCount() > 0) {
+                throw new IllegalStateException("Seeding " + user.getUsername() + " failed: "
+                        + result.getErrors().get(0).getError());
+            }
+            tokens.add(jwtService.generateToken(user.getUsername()));
+        }
+        return tokens;
+    }
+
+    private byte[] toJson(Object document) {
+        try {
+            return objectMapper.writeValueAsBytes(document);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize fixtures", e);
+        }
+    }
+}
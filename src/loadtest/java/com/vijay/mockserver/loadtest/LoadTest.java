@@ -0,0 +1,163 @@
+package com.vijay.mockserver.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.vijay.mockserver.DynamicApiMockServerApplication;
+
+/**
+ * End-to-end load test of /mock/**. Boots the server in this JVM on the
+ * {@code embedded} profile (in-memory H2, random port), seeds users and
+ * mocks, warms up, then runs each scenario and prints throughput, latency
+ * percentiles and the server's allocation rate. Run through the loadtest
+ * Maven profile:
+ *
+ * <pre>
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.args="-users=10 -mocks=200 -duration=30s"
+ * </pre>
+ *
+ * Options (all {@code -name=value}):
+ * <ul>
+ * <li>{@code users} (10), {@code mocks} endpoints per user (200), {@code delay-ms} of delayed mocks (20)</li>
+ * <li>{@code concurrency} requests in flight (64), {@code client-threads} (4)</li>
+ * <li>{@code warmup} (10s) and {@code duration} (30s) per scenario</li>
+ * <li>{@code scenarios}: comma-separated kinds and/or {@code mix} (static,templated,headers,delayed,mix)</li>
+ * <li>{@code mix} weights ({@code static:60,templated:15,headers:20,delayed:5})</li>
+ * <li>{@code out}: file the results are appended to, to compare across commits; {@code label} tags them</li>
+ * </ul>
+ * Arguments starting with {@code --} are passed on to Spring.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        List<String> springArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                springArgs.add(arg);
+            } else if (arg.startsWith("-") && arg.contains("=")) {
+                options.put(arg.substring(1, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            } else {
+                throw new IllegalArgumentException("Expected -name=value, got " + arg);
+            }
+        }
+        int users = Integer.parseInt(options.getOrDefault("users", "10"));
+        int mocks = Integer.parseInt(options.getOrDefault("mocks", "200"));
+        int delayMs = Integer.parseInt(options.getOrDefault("delay-ms", "20"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "64"));
+        int clientThreads = Integer.parseInt(options.getOrDefault("client-threads", "4"));
+        Duration warmup = parseDuration(options.getOrDefault("warmup", "10s"));
+        Duration duration = parseDuration(options.getOrDefault("duration", "30s"));
+        Scenario mix = Scenario.mix("mix", options.getOrDefault("mix", "static:60,templated:15,headers:20,delayed:5"));
+        List<Scenario> scenarios = new ArrayList<>();
+        for (String name : options.getOrDefault("scenarios", "static,templated,headers,delayed,mix").split(",")) {
+            scenarios.add("mix".equals(name.trim()) ? mix : Scenario.only(RequestKind.parse(name)));
+        }
+
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Kolkata")); // as the server's own main does
+        System.setProperty("spring.devtools.restart.enabled", "false"); // read before any property source
+        SpringApplication application = new SpringApplication(DynamicApiMockServerApplication.class);
+        application.setAdditionalProfiles("embedded");
+        application.setDefaultProperties(Map.of(
+                "server.port", "0",
+                "logging.level.root", "WARN",
+                "server.tomcat.mbeanregistry.enabled", "false"));
+        try (ConfigurableApplicationContext context = application.run(springArgs.toArray(new String[0]))) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            long seedStart = System.nanoTime();
+            List<String> tokens = new LoadFixtures(context).seed(users, mocks, delayMs);
+            System.out.printf(Locale.ROOT, "Seeded %d users x %d endpoints in %d ms%n", users, mocks,
+                    (System.nanoTime() - seedStart) / 1_000_000);
+            if (!ServerAllocation.isSupported()) {
+                System.out.println("Per-thread allocation counters unavailable; allocation columns will read 0");
+            }
+
+            List<LoadDriver.Result> results = new ArrayList<>();
+            try (LoadDriver driver = new LoadDriver(URI.create("http://localhost:" + port), tokens, mocks, clientThreads)) {
+                driver.run(mix, warmup, concurrency); // loads every user's routes and warms up the JIT
+                for (Scenario scenario : scenarios) {
+                    System.gc(); // start each scenario from a settled heap
+                    results.add(driver.run(scenario, duration, concurrency));
+                }
+            }
+            String header = String.format(Locale.ROOT, "# %s%s users=%d mocks=%d delay-ms=%d concurrency=%d duration=%s",
+                    Instant.now(), options.containsKey("label") ? " label=" + options.get("label") : "",
+                    users, mocks, delayMs, concurrency, duration);
+            report(System.out, header, results);
+            if (options.containsKey("out")) {
+                Path out = Path.of(options.get("out"));
+                if (out.toAbsolutePath().getParent() != null) {
+                    Files.createDirectories(out.toAbsolutePath().getParent());
+                }
+                try (PrintStream file = new PrintStream(Files.newOutputStream(out, StandardOpenOption.CREATE,
+                        StandardOpenOption.APPEND), false, StandardCharsets.UTF_8)) {
+                    report(file, header, results);
+                }
+            }
+        }
+    }
+
+    private static void report(PrintStream out, String header, List<LoadDriver.Result> results) throws IOException {
+        out.println(header);
+        out.printf(Locale.ROOT, "%-10s %-10s %10s %7s %10s %9s %9s %9s %9s %11s %10s%n", "scenario", "kind",
+                "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "alloc MB/s", "alloc KB/req");
+        for (LoadDriver.Result result : results) {
+            Histogram total = result.total();
+            line(out, result, "all", total, result.errorCount(), result.allocatedBytes);
+            if (result.latencies.size() > 1) {
+                result.latencies.forEach((kind, histogram) -> line(out, result, kind.label, histogram,
+                        result.errors.get(kind).get(), -1));
+            }
+        }
+        out.println();
+    }
+
+    private static void line(PrintStream out, LoadDriver.Result result, String kind, Histogram latencies,
+            long errors, long allocatedBytes) {
+        double seconds = result.elapsedNanos / 1e9;
+        long count = latencies.getTotalCount();
+        String allocRate = allocatedBytes < 0 ? "" : String.format(Locale.ROOT, "%.1f", allocatedBytes / 1e6 / seconds);
+        String allocPerRequest = allocatedBytes < 0 || count == 0 ? ""
+                : String.format(Locale.ROOT, "%.1f", allocatedBytes / 1024.0 / count);
+        out.printf(Locale.ROOT, "%-10s %-10s %10d %7d %10.0f %9.2f %9.2f %9.2f %9.2f %11s %10s%n",
+                result.scenario.name(), kind, count, errors, count / seconds,
+                latencies.getValueAtPercentile(50) / 1000.0, latencies.getValueAtPercentile(99) / 1000.0,
+                latencies.getValueAtPercentile(99.9) / 1000.0, latencies.getMaxValue() / 1000.0,
+                allocRate, allocPerRequest);
+    }
+
+    private static Duration parseDuration(String value) {
+        String v = value.trim().toLowerCase(Locale.ROOT);
+        if (v.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(v.substring(0, v.length() - 2)));
+        }
+        if (v.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(v.substring(0, v.length() - 1)));
+        }
+        if (v.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(v.substring(0, v.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(v));
+    }
+}
@@ -0,0 +1,140 @@
+package com.vijay.mockserver.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.vijay.mockserver.mock.dto.MockEndpointRequest;
+
+/**
+ * The kinds of /mock/** traffic a scenario mixes, each with the mocks it
+ * needs seeded and the request that hits them.
+ */
+enum RequestKind {
+
+    /** A ~1 KB static body, served from pre-serialized bytes */
+    STATIC {
+        @Override
+        List<MockEndpointRequest> mocks(int index, int delayMs) {
+            return List.of(mock("/load/static/" + index, STATIC_BODY, null, 0, 0));
+        }
+
+        @Override
+        HttpRequest.Builder request(URI base, int index) {
+            return HttpRequest.newBuilder(base.resolve("/mock/load/static/" + index));
+        }
+    },
+
+    /** A body rendered per request from path, header, query and generated values */
+    TEMPLATED {
+        @Override
+        List<MockEndpointRequest> mocks(int index, int delayMs) {
+            return List.of(mock("/load/templated/" + index, TEMPLATED_BODY, null, 0, 0));
+        }
+
+        @Override
+        HttpRequest.Builder request(URI base, int index) {
+            return HttpRequest.newBuilder(base.resolve("/mock/load/templated/" + index + "?q=" + index))
+                    .header("X-Trace", "trace-" + ThreadLocalRandom.current().nextInt(1_000_000));
+        }
+    },
+
+    /** Four variants of one endpoint told apart by a header; a random one is requested */
+    HEADERS {
+        @Override
+        List<MockEndpointRequest> mocks(int index, int delayMs) {
+            List<MockEndpointRequest> variants = new ArrayList<>(TENANTS);
+            for (int tenant = 0; tenant < TENANTS; tenant++) {
+                variants.add(mock("/load/headers/" + index,
+                        "{\"tenant\":" + tenant + ",\"plan\":\"standard\",\"features\":[\"a\",\"b\",\"c\"]}",
+                        "{\"X-Tenant\":\"tenant-" + tenant + "\"}", 0, TENANTS - tenant));
+            }
+            return variants;
+        }
+
+        @Override
+        HttpRequest.Builder request(URI base, int index) {
+            return HttpRequest.newBuilder(base.resolve("/mock/load/headers/" + index))
+                    .header("X-Tenant", "tenant-" + ThreadLocalRandom.current().nextInt(TENANTS));
+        }
+    },
+
+    /** A small static body sent after the configured delay */
+    DELAYED {
+        @Override
+        List<MockEndpointRequest> mocks(int index, int delayMs) {
+            return List.of(mock("/load/delayed/" + index, "{\"status\":\"done\"}", null, delayMs, 0));
+        }
+
+        @Override
+        HttpRequest.Builder request(URI base, int index) {
+            return HttpRequest.newBuilder(base.resolve("/mock/load/delayed/" + index));
+        }
+    };
+
+    private static final int TENANTS = 4;
+
+    private static final String STATIC_BODY = staticBody();
+
+    private static final String TEMPLATED_BODY = "{\"id\":\"{{uuid}}\",\"at\":{{timestamp}},"
+            + "\"path\":\"{{request.path}}\",\"trace\":\"{{headers.X-Trace}}\",\"q\":\"{{query.q}}\","
+            + "\"score\":{{random 1 100}},\"items\":[{\"sku\":\"A-1\",\"qty\":1},{\"sku\":\"B-2\",\"qty\":2}]}";
+
+    final String label = name().toLowerCase(Locale.ROOT);
+
+    /**
+     * The mocks one user gets for the {@code index}-th endpoint of this kind.
+     */
+    abstract List<MockEndpointRequest> mocks(int index, int delayMs);
+
+    /**
+     * A request for the {@code index}-th endpoint of this kind, without credentials.
+     */
+    abstract HttpRequest.Builder request(URI base, int index);
+
+    static RequestKind parse(String label) {
+        return valueOf(label.trim().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Endpoints of this kind among {@code mocksPerUser}, which are dealt out
+     * over the kinds in turn.
+     */
+    int endpoints(int mocksPerUser) {
+        int count = values().length;
+        return Math.max(1, (mocksPerUser - ordinal() + count - 1) / count);
+    }
+
+    HttpRequest build(URI base, String token, int index) {
+        return request(base, index)
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+    }
+
+    private static MockEndpointRequest mock(String endpoint, String body, String headers, int delayMs, int priority) {
+        MockEndpointRequest mock = new MockEndpointRequest();
+        mock.setEndpoint(endpoint);
+        mock.setMethod("GET");
+        mock.setResponseJson(body);
+        mock.setRequestHeaders(headers);
+        mock.setDelayMs(delayMs);
+        mock.setPriority(priority);
+        return mock;
+    }
+
+    private static String staticBody() {
+        StringBuilder body = new StringBuilder("{\"products\":[");
+        for (int i = 0; i < 12; i++) {
+            body.append(i == 0 ? "" : ",").append("{\"id\":").append(i)
+                    .append(",\"name\":\"Product ").append(i).append("\",\"price\":").append(10 + i)
+                    .append(".99,\"category\":\"general\"}");
+        }
+        return body.append("],\"total\":12}").toString();
+    }
+}
@@ -0,0 +1,67 @@
+package com.vijay.mockserver.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A named mix of request kinds with relative weights, e.g.
+ * {@code static:60,templated:15,headers:20,delayed:5}.
+ */
+final class Scenario {
+
+    private final String name;
+    private final RequestKind[] kinds;
+    private final int[] cumulative;
+
+    private Scenario(String name, Map<RequestKind, Integer> weights) {
+        this.name = name;
+        this.kinds = weights.keySet().toArray(new RequestKind[0]);
+        this.cumulative = new int[kinds.length];
+        int sum = 0;
+        for (int i = 0; i < kinds.length; i++) {
+            sum += weights.get(kinds[i]);
+            cumulative[i] = sum;
+        }
+        if (sum <= 0) {
+            throw new IllegalArgumentException("Scenario " + name + " has no positive weight");
+        }
+    }
+
+    static Scenario only(RequestKind kind) {
+        return new Scenario(kind.label, Map.of(kind, 1));
+    }
+
+    static Scenario mix(String name, String weights) {
+        Map<RequestKind, Integer> parsed = new EnumMap<>(RequestKind.class);
+        for (String part : weights.split(",")) {
+            String[] pair = part.split(":");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Expected kind:weight, got " + part);
+            }
+            parsed.merge(RequestKind.parse(pair[0]), Integer.parseInt(pair[1].trim()), Integer::sum);
+        }
+        return new Scenario(name, parsed);
+    }
+
+    String name() {
+        return name;
+    }
+
+    RequestKind[] kinds() {
+        return kinds;
+    }
+
+    RequestKind next() {
+        if (kinds.length == 1) {
+            return kinds[0];
+        }
+        int pick = ThreadLocalRandom.current().nextInt(cumulative[cumulative.length - 1]);
+        for (int i = 0; i < cumulative.length; i++) {
+            if (pick < cumulative[i]) {
+                return kinds[i];
+            }
+        }
+        return kinds[kinds.length - 1];
+    }
+}
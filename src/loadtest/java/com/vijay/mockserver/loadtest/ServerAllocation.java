@@ -0,0 +1,44 @@
+package com.vijay.mockserver.loadtest;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+
+/**
+ * Bytes allocated by the server's threads, from the JVM's per-thread
+ * allocation counters. The load client runs in the same process, so its
+ * threads (the HTTP client's selector and the driver pool) are left out.
+ * Threads that end between two readings take their bytes with them; the
+ * server's request and timer threads are pooled and long-lived.
+ */
+final class ServerAllocation {
+
+    static final String CLIENT_THREAD_PREFIX = "loadtest-";
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private ServerAllocation() {
+    }
+
+    static boolean isSupported() {
+        return THREADS.isThreadAllocatedMemorySupported() && THREADS.isThreadAllocatedMemoryEnabled();
+    }
+
+    static long allocatedBytes() {
+        long[] ids = THREADS.getAllThreadIds();
+        ThreadInfo[] infos = THREADS.getThreadInfo(ids);
+        long[] allocated = THREADS.getThreadAllocatedBytes(ids);
+        long total = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (infos[i] == null || allocated[i] < 0 || isClient(infos[i].getThreadName())) {
+                continue;
+            }
+            total += allocated[i];
+        }
+        return total;
+    }
+
+    private static boolean isClient(String name) {
+        return name.startsWith(CLIENT_THREAD_PREFIX) || name.startsWith("HttpClient-");
+    }
+}
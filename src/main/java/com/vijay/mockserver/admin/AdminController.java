@@ -1,9 +1,12 @@
 package com.vijay.mockserver.admin;
 
+import com.vijay.mockserver.security.RateLimitDecision;
 import com.vijay.mockserver.security.RateLimitingService;
 import com.vijay.mockserver.security.RoleBasedAccessService;
 import com.vijay.mockserver.user.User;
+import com.vijay.mockserver.user.UserChangedEvent;
 import com.vijay.mockserver.user.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -21,11 +24,14 @@ public class AdminController {
     private final UserRepository userRepository;
     private final RoleBasedAccessService roleBasedAccessService;
     private final RateLimitingService rateLimitingService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public AdminController(UserRepository userRepository, RoleBasedAccessService roleBasedAccessService, RateLimitingService rateLimitingService) {
+    public AdminController(UserRepository userRepository, RoleBasedAccessService roleBasedAccessService, RateLimitingService rateLimitingService,
+                           ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.roleBasedAccessService = roleBasedAccessService;
         this.rateLimitingService = rateLimitingService;
+        this.eventPublisher = eventPublisher;
     }
 
     @GetMapping("/users")
@@ -57,6 +63,7 @@ public class AdminController {
             User.Role newRole = User.Role.valueOf(roleStr.toUpperCase());
             user.setRole(newRole);
             userRepository.save(user);
+            eventPublisher.publishEvent(new UserChangedEvent(user.getId(), user.getUsername()));
             return ResponseEntity.ok(user);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
@@ -80,6 +87,7 @@ public class AdminController {
         if (rateLimit != null && rateLimit > 0) {
             user.setRateLimitPerMinute(rateLimit);
             userRepository.save(user);
+            eventPublisher.publishEvent(new UserChangedEvent(user.getId(), user.getUsername()));
             // Reset the user's current rate limit bucket
             rateLimitingService.resetRateLimit(user);
         }
@@ -130,13 +138,14 @@ public class AdminController {
         }
         
         User user = userOpt.get();
-        long remainingTokens = rateLimitingService.getRemainingTokens(user);
+        RateLimitDecision bucket = rateLimitingService.getStatus(user);
         
         Map<String, Object> status = Map.of(
             "userId", user.getId(),
             "username", user.getUsername(),
             "rateLimitPerMinute", user.getRateLimitPerMinute(),
-            "remainingTokens", remainingTokens
+            "remainingTokens", bucket.remaining(),
+            "resetInMs", bucket.resetMillis()
         );
         
         return ResponseEntity.ok(status);
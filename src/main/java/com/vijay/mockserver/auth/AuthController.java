@@ -5,6 +5,7 @@ import com.vijay.mockserver.auth.dto.LoginRequest;
 import com.vijay.mockserver.auth.dto.RegisterRequest;
 import com.vijay.mockserver.security.JwtService;
 import com.vijay.mockserver.user.User;
+import com.vijay.mockserver.user.UserIdentityCache;
 import com.vijay.mockserver.user.UserRepository;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
@@ -21,12 +22,15 @@ public class AuthController {
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
+    private final UserIdentityCache userIdentityCache;
 
-    public AuthController(UserRepository userRepository, PasswordEncoder passwordEncoder, AuthenticationManager authenticationManager, JwtService jwtService) {
+    public AuthController(UserRepository userRepository, PasswordEncoder passwordEncoder, AuthenticationManager authenticationManager, JwtService jwtService,
+                          UserIdentityCache userIdentityCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authenticationManager = authenticationManager;
         this.jwtService = jwtService;
+        this.userIdentityCache = userIdentityCache;
     }
 
     @PostMapping("/register")
@@ -42,6 +46,7 @@ public class AuthController {
         user.setPassword(passwordEncoder.encode(request.getPassword()));
         user.setEmail(request.getEmail());
         userRepository.save(user);
+        userIdentityCache.invalidate(user.getUsername());
         String token = jwtService.generateToken(user.getUsername());
         return ResponseEntity.ok(new AuthResponse(token));
     }
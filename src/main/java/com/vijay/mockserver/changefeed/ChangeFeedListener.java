@@ -0,0 +1,232 @@
+package com.vijay.mockserver.changefeed;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.vijay.mockserver.mock.MockEndpointChangedEvent;
+import com.vijay.mockserver.mock.MockRouteTable;
+import com.vijay.mockserver.mock.MockSearchIndex;
+import com.vijay.mockserver.user.UserIdentityCache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Applies other nodes' changes to this node's caches. Notifications arrive on
+ * a dedicated connection outside the pool; each one invalidates just the
+ * affected route or user. Because a notification can be lost while the
+ * connection is down, resident route tables are also compared with the
+ * database on every (re)connect and periodically; cached user identities are
+ * bounded by their TTL.
+ */
+@Component
+@ConditionalOnProperty(name = "app.changefeed.enabled", havingValue = "true", matchIfMissing = true)
+public class ChangeFeedListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeFeedListener.class);
+
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private final ChangeFeedPublisher publisher;
+    private final DataSourceProperties dataSourceProperties;
+    private final MockRouteTable routeTable;
+    private final MockSearchIndex searchIndex;
+    private final UserIdentityCache userIdentityCache;
+    private final int pollTimeoutMs;
+    private final long reconcileIntervalMs;
+    private final ScheduledExecutorService reconciler;
+
+    private final Timer lag;
+    private final Counter applied;
+    private final Counter own;
+    private final Counter malformed;
+    private final Counter staleUsers;
+
+    private volatile boolean running;
+    private volatile boolean connected;
+    private volatile Connection connection;
+    private Thread thread;
+
+    public ChangeFeedListener(ChangeFeedPublisher publisher, DataSourceProperties dataSourceProperties,
+            MockRouteTable routeTable, MockSearchIndex searchIndex, UserIdentityCache userIdentityCache,
+            @Value("${app.changefeed.poll-timeout-ms:1000}") int pollTimeoutMs,
+            @Value("${app.changefeed.reconcile-interval-ms:60000}") long reconcileIntervalMs,
+            MeterRegistry registry) {
+        this.publisher = publisher;
+        this.dataSourceProperties = dataSourceProperties;
+        this.routeTable = routeTable;
+        this.searchIndex = searchIndex;
+        this.userIdentityCache = userIdentityCache;
+        this.pollTimeoutMs = pollTimeoutMs;
+        this.reconcileIntervalMs = reconcileIntervalMs;
+        this.reconciler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "changefeed-reconcile");
+            t.setDaemon(true);
+            return t;
+        });
+        this.lag = Timer.builder("changefeed.lag").publishPercentileHistogram()
+                .description("Time from a change being sent on another node to it being applied here")
+                .register(registry);
+        this.applied = received(registry, "applied");
+        this.own = received(registry, "own");
+        this.malformed = received(registry, "malformed");
+        this.staleUsers = Counter.builder("changefeed.reconcile.stale")
+                .description("Resident users found stale by reconciliation").register(registry);
+        Gauge.builder("changefeed.connected", this, l -> l.connected ? 1 : 0)
+                .description("Whether the change feed connection is listening").register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!publisher.isActive() || running) {
+            return; // not PostgreSQL: single-node caches only
+        }
+        running = true;
+        thread = new Thread(this::listen, "changefeed-listener");
+        thread.setDaemon(true);
+        thread.start();
+        reconciler.scheduleWithFixedDelay(this::reconcile, reconcileIntervalMs, reconcileIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        reconciler.shutdownNow();
+        if (thread != null) {
+            thread.interrupt();
+        }
+        closeQuietly(connection);
+    }
+
+    private void listen() {
+        long backoff = 1_000;
+        while (running) {
+            try (Connection c = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                connection = c;
+                c.setAutoCommit(true);
+                try (Statement statement = c.createStatement()) {
+                    statement.execute("LISTEN " + ChangeFeedPublisher.CHANNEL);
+                }
+                PGConnection pg = c.unwrap(PGConnection.class);
+                connected = true;
+                backoff = 1_000;
+                // Anything sent while we were not listening is lost; catch up from the database
+                reconciler.execute(this::reconcile);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(pollTimeoutMs);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            apply(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    log.warn("Change feed connection lost, retrying in {} ms: {}", backoff, e.getMessage());
+                }
+            } finally {
+                connected = false;
+                connection = null;
+            }
+            if (running) {
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                backoff = Math.min(MAX_BACKOFF_MS, backoff * 2);
+            }
+        }
+    }
+
+    private void apply(String payload) {
+        ChangeMessage message;
+        try {
+            message = ChangeMessage.parse(payload);
+        } catch (IllegalArgumentException e) {
+            malformed.increment();
+            return;
+        }
+        if (message.nodeId().equals(publisher.getNodeId())) {
+            own.increment(); // already applied locally when it was published
+            return;
+        }
+        try {
+            switch (message.kind()) {
+                case MOCK:
+                    MockEndpointChangedEvent event = new MockEndpointChangedEvent(message.userId(), null, "remote",
+                            message.endpoint(), message.method(), message.version());
+                    routeTable.onMockEndpointChanged(event);
+                    searchIndex.onMockEndpointChanged(event);
+                    break;
+                case USER:
+                    userIdentityCache.invalidate(message.username());
+                    break;
+                default:
+                    routeTable.invalidateAll();
+                    searchIndex.invalidateAll();
+                    userIdentityCache.invalidateAll();
+            }
+        } catch (RuntimeException e) {
+            // Could not reload (e.g. database hiccup): drop the user so the next request reloads it
+            if (message.userId() != null) {
+                routeTable.invalidateUser(message.userId());
+                searchIndex.invalidateUser(message.userId());
+            } else {
+                routeTable.invalidateAll();
+                searchIndex.invalidateAll();
+            }
+        }
+        applied.increment();
+        lag.record(Math.max(0, System.currentTimeMillis() - message.sentAtMillis()), TimeUnit.MILLISECONDS);
+    }
+
+    private void reconcile() {
+        try {
+            int stale = routeTable.reconcile();
+            int staleIndexes = searchIndex.reconcile();
+            if (stale + staleIndexes > 0) {
+                staleUsers.increment(stale + staleIndexes);
+                log.info("Change feed reconciliation dropped {} stale user route tables and {} search indexes",
+                        stale, staleIndexes);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Change feed reconciliation failed: {}", e.getMessage());
+        }
+    }
+
+    private static Counter received(MeterRegistry registry, String result) {
+        return Counter.builder("changefeed.received").tag("result", result)
+                .description("Change notifications received from the feed").register(registry);
+    }
+
+    private static void closeQuietly(Connection c) {
+        if (c != null) {
+            try {
+                c.close();
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.vijay.mockserver.changefeed;
+
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.vijay.mockserver.common.Databases;
+import com.vijay.mockserver.mock.MockEndpointChangedEvent;
+import com.vijay.mockserver.user.UserChangedEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Sends every mock and user change to the other nodes with PostgreSQL
+ * {@code NOTIFY}. The notification is issued inside the writing transaction,
+ * and PostgreSQL delivers it only if and when that transaction commits.
+ * Inactive on any other database.
+ */
+@Component
+@ConditionalOnProperty(name = "app.changefeed.enabled", havingValue = "true", matchIfMissing = true)
+public class ChangeFeedPublisher {
+
+    static final String CHANNEL = "mock_changes";
+
+    private static final RowCallbackHandler IGNORE = rs -> {
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String nodeId;
+    private final boolean active;
+    private final Counter sent;
+
+    public ChangeFeedPublisher(JdbcTemplate jdbcTemplate, DataSource dataSource,
+            @Value("${app.changefeed.node-id:}") String nodeId, MeterRegistry registry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        this.active = Databases.isPostgres(dataSource);
+        this.sent = Counter.builder("changefeed.sent").description("Change notifications sent to other nodes")
+                .register(registry);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onMockEndpointChanged(MockEndpointChangedEvent event) {
+        send(ChangeMessage.mock(nodeId, event.userId(), event.version(), event.method(), event.endpoint()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        send(event.isAll() ? ChangeMessage.all(nodeId) : ChangeMessage.user(nodeId, event.userId(), event.username()));
+    }
+
+    /**
+     * Identifies this node's own notifications, which the listener skips.
+     */
+    String getNodeId() {
+        return nodeId;
+    }
+
+    boolean isActive() {
+        return active;
+    }
+
+    private void send(ChangeMessage message) {
+        if (!active) {
+            return;
+        }
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", IGNORE, CHANNEL, message.encode());
+        sent.increment();
+    }
+}
@@ -0,0 +1,77 @@
+package com.vijay.mockserver.changefeed;
+
+/**
+ * One change as sent over the feed, encoded as a short {@code |}-separated
+ * line: {@code M|node|sentAt|userId|version|method|endpoint} for a mock
+ * change, {@code U|node|sentAt|userId|username} for a user change and
+ * {@code A|node|sentAt} for "everything changed". Free-text fields come last
+ * so they may contain the separator.
+ */
+record ChangeMessage(Kind kind, String nodeId, long sentAtMillis, Long userId, Integer version,
+        String method, String endpoint, String username) {
+
+    enum Kind { MOCK, USER, ALL }
+
+    static ChangeMessage mock(String nodeId, Long userId, Integer version, String method, String endpoint) {
+        return new ChangeMessage(Kind.MOCK, nodeId, System.currentTimeMillis(), userId, version, method, endpoint, null);
+    }
+
+    static ChangeMessage user(String nodeId, Long userId, String username) {
+        return new ChangeMessage(Kind.USER, nodeId, System.currentTimeMillis(), userId, null, null, null, username);
+    }
+
+    static ChangeMessage all(String nodeId) {
+        return new ChangeMessage(Kind.ALL, nodeId, System.currentTimeMillis(), null, null, null, null, null);
+    }
+
+    String encode() {
+        String head = kind.name().charAt(0) + "|" + nodeId + "|" + sentAtMillis;
+        switch (kind) {
+            case MOCK:
+                return head + "|" + userId + "|" + (version != null ? version : "") + "|"
+                        + (method != null ? method : "") + "|" + (endpoint != null ? endpoint : "");
+            case USER:
+                return head + "|" + (userId != null ? userId : "") + "|" + username;
+            default:
+                return head;
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the payload is not a change message
+     */
+    static ChangeMessage parse(String payload) {
+        String[] parts = payload.split("\\|", 7);
+        if (parts.length < 3) {
+            throw new IllegalArgumentException("Not a change message: " + payload);
+        }
+        String nodeId = parts[1];
+        long sentAt = Long.parseLong(parts[2]);
+        switch (parts[0]) {
+            case "M": {
+                if (parts.length != 7) {
+                    throw new IllegalArgumentException("Incomplete mock change: " + payload);
+                }
+                return new ChangeMessage(Kind.MOCK, nodeId, sentAt, Long.valueOf(parts[3]),
+                        parts[4].isEmpty() ? null : Integer.valueOf(parts[4]),
+                        emptyToNull(parts[5]), emptyToNull(parts[6]), null);
+            }
+            case "U": {
+                String[] user = payload.split("\\|", 5);
+                if (user.length != 5) {
+                    throw new IllegalArgumentException("Incomplete user change: " + payload);
+                }
+                return new ChangeMessage(Kind.USER, nodeId, sentAt, user[3].isEmpty() ? null : Long.valueOf(user[3]),
+                        null, null, null, user[4]);
+            }
+            case "A":
+                return new ChangeMessage(Kind.ALL, nodeId, sentAt, null, null, null, null, null);
+            default:
+                throw new IllegalArgumentException("Unknown change kind: " + payload);
+        }
+    }
+
+    private static String emptyToNull(String s) {
+        return s.isEmpty() ? null : s;
+    }
+}
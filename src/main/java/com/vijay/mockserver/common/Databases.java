@@ -0,0 +1,27 @@
+package com.vijay.mockserver.common;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+/**
+ * Checks of the database behind a {@link DataSource}, for components with a
+ * PostgreSQL-only path and a portable fallback.
+ */
+public final class Databases {
+
+    private Databases() {
+    }
+
+    /**
+     * Whether the data source is PostgreSQL; false if it cannot be reached.
+     */
+    public static boolean isPostgres(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            return "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+}
@@ -5,6 +5,9 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
 public class PaginationService {
 
     public static Pageable createPageable(int page, int size, String sortBy, String sortDirection) {
@@ -25,6 +28,120 @@ public class PaginationService {
         return response;
     }
 
+    public static <T> CursorPagedResponse<T> createCursorPagedResponse(java.util.List<T> content, int size,
+                                                                       Cursor next, Long totalElements) {
+        CursorPagedResponse<T> response = new CursorPagedResponse<>();
+        response.setContent(content);
+        response.setSize(size);
+        response.setNumberOfElements(content.size());
+        response.setHasNext(next != null);
+        response.setNextCursor(next != null ? next.encode() : null);
+        response.setTotalElements(totalElements);
+        return response;
+    }
+
+    /**
+     * Position after the last row of a keyset page: the sort it was issued for,
+     * that row's sort key and its id as the tie-breaker. Clients treat the
+     * encoded form as opaque.
+     */
+    public record Cursor(String sortBy, Sort.Direction direction, String lastValue, long lastId) {
+
+        private static final String VERSION = "1";
+
+        public String encode() {
+            // The value goes last so it may contain the separator
+            String raw = String.join("|", VERSION, sortBy, direction.name(), Long.toString(lastId),
+                    lastValue != null ? lastValue : "");
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * @throws InvalidCursorException if the token is malformed or belongs to another sort
+         */
+        public static Cursor decode(String token, String sortBy, Sort.Direction direction) {
+            String[] parts;
+            try {
+                parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|", 5);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidCursorException("Malformed cursor");
+            }
+            if (parts.length != 5 || !VERSION.equals(parts[0])) {
+                throw new InvalidCursorException("Malformed cursor");
+            }
+            if (!parts[1].equals(sortBy) || !parts[2].equals(direction.name())) {
+                throw new InvalidCursorException("Cursor was issued for a different sort order");
+            }
+            try {
+                return new Cursor(sortBy, direction, parts[4], Long.parseLong(parts[3]));
+            } catch (NumberFormatException e) {
+                throw new InvalidCursorException("Malformed cursor");
+            }
+        }
+    }
+
+    /**
+     * A keyset page. There are no page numbers: {@code nextCursor} continues
+     * after the last row, and {@code totalElements} is only filled in when a
+     * count was asked for.
+     */
+    public static class CursorPagedResponse<T> {
+        private java.util.List<T> content;
+        private int size;
+        private int numberOfElements;
+        private boolean hasNext;
+        private String nextCursor;
+        private Long totalElements;
+
+        public java.util.List<T> getContent() {
+            return content;
+        }
+
+        public void setContent(java.util.List<T> content) {
+            this.content = content;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public void setSize(int size) {
+            this.size = size;
+        }
+
+        public int getNumberOfElements() {
+            return numberOfElements;
+        }
+
+        public void setNumberOfElements(int numberOfElements) {
+            this.numberOfElements = numberOfElements;
+        }
+
+        public boolean isHasNext() {
+            return hasNext;
+        }
+
+        public void setHasNext(boolean hasNext) {
+            this.hasNext = hasNext;
+        }
+
+        public String getNextCursor() {
+            return nextCursor;
+        }
+
+        public void setNextCursor(String nextCursor) {
+            this.nextCursor = nextCursor;
+        }
+
+        public Long getTotalElements() {
+            return totalElements;
+        }
+
+        public void setTotalElements(Long totalElements) {
+            this.totalElements = totalElements;
+        }
+    }
+
     public static class PagedResponse<T> {
         private java.util.List<T> content;
         private int page;
@@ -0,0 +1,33 @@
+package com.vijay.mockserver.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Open-entity-manager-in-view for the API, but not for the /mock/** serving
+ * path (the /mock/endpoints management API keeps it). Serving
+ * works from the resident route table; an entity manager held for a whole
+ * mock request would pin a pooled connection while the body store takes
+ * another, which deadlocks the pool when many users load at once. Replaces
+ * Spring Boot's global interceptor ({@code spring.jpa.open-in-view: false}).
+ */
+@Configuration
+public class OpenEntityManagerInViewConfig implements WebMvcConfigurer {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public OpenEntityManagerInViewConfig(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        OpenEntityManagerInViewInterceptor interceptor = new OpenEntityManagerInViewInterceptor();
+        interceptor.setEntityManagerFactory(entityManagerFactory);
+        registry.addWebRequestInterceptor(interceptor).excludePathPatterns("/mock/**");
+        registry.addWebRequestInterceptor(interceptor).addPathPatterns("/mock/endpoints", "/mock/endpoints/**");
+    }
+}
@@ -0,0 +1,17 @@
+package com.vijay.mockserver.journal;
+
+/**
+ * One served /mock/** request as recorded in the journal. Built on the
+ * serving thread from values it already has; serialized by the writer.
+ *
+ * @param timestamp  epoch milliseconds when the response was sent
+ * @param userId     owner of the mocks, or null if no user was resolved
+ * @param mockId     id of the mock version that answered, or null if none matched
+ * @param query      raw query string, or null
+ * @param bytes      response body bytes sent
+ * @param micros     processing time without injected delay
+ * @param delayMs    injected delay, 0 if none
+ */
+public record JournalEntry(long timestamp, Long userId, String username, String method, String path, String query,
+        int status, Long mockId, int bytes, long micros, long delayMs) {
+}
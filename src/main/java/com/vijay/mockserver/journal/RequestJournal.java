@@ -0,0 +1,353 @@
+package com.vijay.mockserver.journal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Journal of served /mock/** requests, written to rotating JSONL files off
+ * the serving path. Serving threads only offer an entry to a bounded
+ * lock-free buffer and never wait: when the buffer is full the entry is
+ * dropped and counted. One writer thread drains the buffer in batches,
+ * appends them through a {@link FileChannel}, and keeps the most recent
+ * entries of each user in memory for {@link #recent}.
+ * <p>
+ * {@code app.journal.fsync} trades durability for write cost: {@code never}
+ * leaves flushing to the OS, {@code batch} forces every written batch to
+ * disk, {@code interval} at most every {@code app.journal.fsync-interval-ms}.
+ */
+@Component
+public class RequestJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestJournal.class);
+
+    private static final String PREFIX = "requests-";
+    private static final String SUFFIX = ".jsonl";
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    enum FsyncPolicy {
+        NEVER, BATCH, INTERVAL
+    }
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private final int batchSize;
+    private final int recentPerUser;
+    private final FsyncPolicy fsync;
+    private final long fsyncIntervalNanos;
+    private final RingBuffer<JournalEntry> buffer;
+    private final Map<Long, Deque<JournalEntry>> recentByUser = new ConcurrentHashMap<>();
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final ByteArrayOutputStream encoded = new ByteArrayOutputStream(64 * 1024);
+
+    private final Counter published;
+    private final Counter droppedFull;
+    private final Counter droppedIo;
+    private final Counter written;
+    private final Timer flushes;
+
+    private volatile boolean running;
+    private Thread writer;
+    // Writer thread only
+    private FileChannel channel;
+    private volatile Path currentFile;
+    private long lastFsync = System.nanoTime();
+    private boolean unsynced;
+
+    public RequestJournal(@Value("${app.journal.enabled:true}") boolean enabled,
+            @Value("${app.journal.dir:journal}") Path directory,
+            @Value("${app.journal.max-file-size:64MB}") DataSize maxFileSize,
+            @Value("${app.journal.max-files:10}") int maxFiles,
+            @Value("${app.journal.buffer-size:65536}") int bufferSize,
+            @Value("${app.journal.batch-size:512}") int batchSize,
+            @Value("${app.journal.recent-per-user:1000}") int recentPerUser,
+            @Value("${app.journal.fsync:interval}") String fsync,
+            @Value("${app.journal.fsync-interval-ms:1000}") long fsyncIntervalMs,
+            MeterRegistry registry) {
+        this.enabled = enabled;
+        this.directory = directory;
+        this.maxFileBytes = Math.max(1024, maxFileSize.toBytes());
+        this.maxFiles = Math.max(1, maxFiles);
+        this.batchSize = Math.max(1, batchSize);
+        this.recentPerUser = Math.max(0, recentPerUser);
+        this.fsync = FsyncPolicy.valueOf(fsync.trim().toUpperCase(Locale.ROOT));
+        this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMs);
+        this.buffer = new RingBuffer<>(bufferSize);
+        this.published = Counter.builder("journal.entries").tag("result", "published")
+                .description("Journal entries accepted into the buffer").register(registry);
+        this.droppedFull = Counter.builder("journal.entries").tag("result", "dropped_full")
+                .description("Journal entries dropped because the buffer was full").register(registry);
+        this.droppedIo = Counter.builder("journal.entries").tag("result", "dropped_io")
+                .description("Journal entries lost because writing them failed").register(registry);
+        this.written = Counter.builder("journal.entries").tag("result", "written")
+                .description("Journal entries written to file").register(registry);
+        this.flushes = Timer.builder("journal.flush")
+                .description("Time to encode and write one batch").register(registry);
+        Gauge.builder("journal.buffer.size", buffer, RingBuffer::size)
+                .description("Journal entries waiting for the writer").register(registry);
+    }
+
+    /**
+     * Offer an entry from a serving thread. Never blocks.
+     *
+     * @return false if the entry was dropped
+     */
+    public boolean publish(JournalEntry entry) {
+        if (!enabled) {
+            return false;
+        }
+        if (buffer.offer(entry)) {
+            published.increment();
+            return true;
+        }
+        droppedFull.increment();
+        return false;
+    }
+
+    /**
+     * The newest entries of a user that pass {@code filter}, newest first.
+     * Served from memory; covers at most {@code app.journal.recent-per-user}
+     * entries per user since startup.
+     */
+    public List<JournalEntry> recent(Long userId, Predicate<JournalEntry> filter, int limit) {
+        Deque<JournalEntry> entries = recentByUser.get(userId);
+        if (entries == null || limit <= 0) {
+            return List.of();
+        }
+        List<JournalEntry> result = new ArrayList<>(Math.min(limit, recentPerUser));
+        synchronized (entries) {
+            for (JournalEntry entry : entries) { // newest first
+                if (filter.test(entry)) {
+                    result.add(entry);
+                    if (result.size() >= limit) {
+                        break;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    public Stats stats() {
+        return new Stats(enabled, (long) published.count(), (long) droppedFull.count(), (long) droppedIo.count(),
+                (long) written.count(), buffer.size(), buffer.capacity(), fsync.name().toLowerCase(Locale.ROOT),
+                currentFile != null ? currentFile.toString() : null);
+    }
+
+    public record Stats(boolean enabled, long published, long droppedFull, long droppedIo, long written,
+            int buffered, int capacity, String fsync, String file) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::runWriter, "request-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        Thread thread = writer;
+        if (thread == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(thread);
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private void runWriter() {
+        List<JournalEntry> batch = new ArrayList<>(batchSize);
+        try {
+            while (running || buffer.size() > 0) {
+                if (buffer.drain(batch, batchSize) == 0) {
+                    syncIfDue();
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    continue;
+                }
+                long start = System.nanoTime();
+                write(batch);
+                flushes.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                remember(batch);
+                batch.clear();
+            }
+        } finally {
+            closeFile(true);
+        }
+    }
+
+    private void write(List<JournalEntry> batch) {
+        try {
+            encoded.reset();
+            try (JsonGenerator json = jsonFactory.createGenerator(encoded)) {
+                json.setRootValueSeparator(null); // entries are separated by the newline alone
+                for (JournalEntry entry : batch) {
+                    writeEntry(json, entry);
+                    json.writeRaw('\n');
+                }
+            }
+            FileChannel out = channel();
+            ByteBuffer bytes = ByteBuffer.wrap(encoded.toByteArray());
+            while (bytes.hasRemaining()) {
+                out.write(bytes);
+            }
+            written.increment(batch.size());
+            unsynced = true;
+            if (fsync == FsyncPolicy.BATCH) {
+                sync();
+            } else {
+                syncIfDue();
+            }
+            if (out.size() >= maxFileBytes) {
+                closeFile(true);
+            }
+        } catch (IOException e) {
+            droppedIo.increment(batch.size());
+            log.warn("Failed to write {} journal entries to {}: {}", batch.size(), currentFile, e.getMessage());
+            closeFile(false); // reopened with the next batch
+        }
+    }
+
+    private static void writeEntry(JsonGenerator json, JournalEntry entry) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("timestamp", entry.timestamp());
+        if (entry.userId() != null) {
+            json.writeNumberField("userId", entry.userId());
+        }
+        if (entry.username() != null) {
+            json.writeStringField("username", entry.username());
+        }
+        json.writeStringField("method", entry.method());
+        json.writeStringField("path", entry.path());
+        if (entry.query() != null) {
+            json.writeStringField("query", entry.query());
+        }
+        json.writeNumberField("status", entry.status());
+        if (entry.mockId() != null) {
+            json.writeNumberField("mockId", entry.mockId());
+        }
+        json.writeNumberField("bytes", entry.bytes());
+        json.writeNumberField("micros", entry.micros());
+        if (entry.delayMs() > 0) {
+            json.writeNumberField("delayMs", entry.delayMs());
+        }
+        json.writeEndObject();
+    }
+
+    private void remember(List<JournalEntry> batch) {
+        if (recentPerUser == 0) {
+            return;
+        }
+        for (JournalEntry entry : batch) {
+            if (entry.userId() == null) {
+                continue;
+            }
+            Deque<JournalEntry> entries = recentByUser.computeIfAbsent(entry.userId(), id -> new ArrayDeque<>());
+            synchronized (entries) {
+                entries.addFirst(entry);
+                if (entries.size() > recentPerUser) {
+                    entries.removeLast();
+                }
+            }
+        }
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            Files.createDirectories(directory);
+            currentFile = directory.resolve(PREFIX + System.currentTimeMillis() + SUFFIX);
+            channel = FileChannel.open(currentFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            deleteOldFiles();
+        }
+        return channel;
+    }
+
+    private void syncIfDue() {
+        if (unsynced && fsync == FsyncPolicy.INTERVAL && System.nanoTime() - lastFsync >= fsyncIntervalNanos) {
+            try {
+                sync();
+            } catch (IOException e) {
+                log.warn("Failed to sync journal file {}: {}", currentFile, e.getMessage());
+            }
+        }
+    }
+
+    private void sync() throws IOException {
+        if (channel != null) {
+            channel.force(false);
+        }
+        unsynced = false;
+        lastFsync = System.nanoTime();
+    }
+
+    private void closeFile(boolean syncFirst) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            if (syncFirst && unsynced && fsync != FsyncPolicy.NEVER) {
+                sync();
+            }
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close journal file {}: {}", currentFile, e.getMessage());
+        }
+        channel = null;
+    }
+
+    /**
+     * Keep the newest {@code app.journal.max-files} files, the open one included.
+     */
+    private void deleteOldFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        if (files.size() <= maxFiles) {
+            return;
+        }
+        files.sort(null); // names carry the creation time, so name order is age order
+        for (Path old : files.subList(0, files.size() - maxFiles)) {
+            Files.deleteIfExists(old);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.vijay.mockserver.journal;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.vijay.mockserver.security.RoleBasedAccessService;
+import com.vijay.mockserver.user.UserIdentityCache;
+
+@RestController
+@RequestMapping("/api/journal")
+public class RequestJournalController {
+
+    private static final int MAX_LIMIT = 1000;
+
+    private final RequestJournal journal;
+    private final UserIdentityCache userIdentityCache;
+    private final RoleBasedAccessService roleBasedAccessService;
+
+    public RequestJournalController(RequestJournal journal, UserIdentityCache userIdentityCache,
+            RoleBasedAccessService roleBasedAccessService) {
+        this.journal = journal;
+        this.userIdentityCache = userIdentityCache;
+        this.roleBasedAccessService = roleBasedAccessService;
+    }
+
+    /**
+     * Recent requests served from the caller's mocks, newest first.
+     *
+     * @param path  substring of the request path
+     * @param since epoch milliseconds; only later entries are returned
+     */
+    @GetMapping
+    public ResponseEntity<List<JournalEntry>> recent(
+            @RequestParam(value = "limit", defaultValue = "100") int limit,
+            @RequestParam(value = "method", required = false) String method,
+            @RequestParam(value = "status", required = false) Integer status,
+            @RequestParam(value = "path", required = false) String path,
+            @RequestParam(value = "since", required = false) Long since) {
+        Predicate<JournalEntry> filter = entry -> (method == null || method.equalsIgnoreCase(entry.method()))
+                && (status == null || status == entry.status())
+                && (path == null || entry.path().contains(path))
+                && (since == null || entry.timestamp() > since);
+        Long userId = userIdentityCache.current().getId();
+        return ResponseEntity.ok(journal.recent(userId, filter, Math.min(Math.max(limit, 1), MAX_LIMIT)));
+    }
+
+    /**
+     * Counters of the whole journal and the file being written; admins only.
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<RequestJournal.Stats> stats() {
+        if (!roleBasedAccessService.canPerformAdminOperations(userIdentityCache.current())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(journal.stats());
+    }
+}
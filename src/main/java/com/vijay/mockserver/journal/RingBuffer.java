@@ -0,0 +1,73 @@
+package com.vijay.mockserver.journal;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue for many producers and one consumer. A producer
+ * claims a sequence with one CAS and fails instead of waiting when the
+ * buffer is full; the consumer drains in batches without any CAS.
+ */
+public final class RingBuffer<E> {
+
+    private final AtomicReferenceArray<E> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong(); // next sequence to claim
+    private final AtomicLong head = new AtomicLong(); // next sequence to consume; written by the consumer only
+
+    public RingBuffer(int capacity) {
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1; // next power of two
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Add an element unless the buffer is full.
+     *
+     * @return false if the element was dropped
+     */
+    public boolean offer(E element) {
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head.get() >= slots.length()) {
+                return false;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+        slots.set((int) (sequence & mask), element);
+        return true;
+    }
+
+    /**
+     * Move up to {@code max} elements in publication order into {@code into}.
+     * Stops early at a slot that was claimed but is not yet written.
+     *
+     * @return the number of elements moved
+     */
+    public int drain(List<E> into, int max) {
+        long sequence = head.get();
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) (sequence & mask);
+            E element = slots.get(index);
+            if (element == null) {
+                break;
+            }
+            slots.lazySet(index, null);
+            into.add(element);
+            sequence++;
+            drained++;
+        }
+        head.lazySet(sequence); // ordered after the slot clears, so a producer never reuses a full slot
+        return drained;
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+}
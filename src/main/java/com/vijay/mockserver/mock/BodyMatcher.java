@@ -0,0 +1,271 @@
+package com.vijay.mockserver.mock;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Compiled {@code requestBodyPattern}. The pattern is a partial JSON document:
+ * nested objects and arrays (by position) select fields, and keys starting with
+ * {@code $} are field paths such as {@code $.user.address[0].city}. String
+ * leaves are {@link ValueMatcher} rules (see
+ * {@link ValueMatcher#compileBodyRule} for bare regexes), other scalars must
+ * be equal.
+ * <p>
+ * Bodies are read with a streaming {@link JsonParser}; subtrees no rule refers
+ * to are skipped, and parsing stops as soon as every rule has been satisfied
+ * or one has failed, so the body is never materialized as a tree.
+ */
+public final class BodyMatcher {
+
+    static final int MAX_RULES = 63;
+
+    private static final long FAIL = -1L;
+
+    private final JsonFactory jsonFactory;
+    private final Node root;
+    private final long allSeen;
+
+    private BodyMatcher(JsonFactory jsonFactory, Node root, int ruleCount) {
+        this.jsonFactory = jsonFactory;
+        this.root = root;
+        this.allSeen = (1L << ruleCount) - 1;
+    }
+
+    /**
+     * Compile a pattern object, or return {@code null} if it has no rules.
+     *
+     * @throws InvalidMockDefinitionException if a path, rule or the pattern shape is invalid
+     */
+    static BodyMatcher compile(JsonFactory jsonFactory, JsonNode pattern) {
+        Node root = new Node();
+        int[] ruleCount = {0};
+        addObject(root, pattern, "$", ruleCount);
+        if (ruleCount[0] == 0) {
+            return null;
+        }
+        return new BodyMatcher(jsonFactory, root, ruleCount[0]);
+    }
+
+    public boolean matches(byte[] body) {
+        if (body.length == 0) {
+            return false;
+        }
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            JsonToken token = parser.nextToken();
+            return token != null && visit(parser, token, root, 0L) == allSeen;
+        } catch (IOException e) {
+            return false; // not JSON, so no body rule can hold
+        }
+    }
+
+    private long visit(JsonParser parser, JsonToken token, Node node, long seen) throws IOException {
+        if (node.leaf != null) {
+            return node.leaf.test(parser, token) ? seen | node.leaf.bit : FAIL;
+        }
+        if (token == JsonToken.START_OBJECT && node.fields != null) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                Node child = node.fields.get(parser.currentName());
+                JsonToken valueToken = parser.nextToken();
+                if (child == null) {
+                    parser.skipChildren();
+                    continue;
+                }
+                seen = visit(parser, valueToken, child, seen);
+                if (seen == FAIL || seen == allSeen) {
+                    return seen;
+                }
+            }
+            return seen;
+        }
+        if (token == JsonToken.START_ARRAY && node.elements != null) {
+            int index = 0;
+            JsonToken elementToken;
+            while ((elementToken = parser.nextToken()) != JsonToken.END_ARRAY && elementToken != null) {
+                Node child = index < node.elements.length ? node.elements[index] : null;
+                index++;
+                if (child == null) {
+                    parser.skipChildren();
+                    continue;
+                }
+                seen = visit(parser, elementToken, child, seen);
+                if (seen == FAIL || seen == allSeen) {
+                    return seen;
+                }
+            }
+            return seen;
+        }
+        return FAIL; // shape differs from the pattern, the rules below can never hold
+    }
+
+    // ---- compilation ----
+
+    private static void addObject(Node node, JsonNode pattern, String path, int[] ruleCount) {
+        Iterator<Map.Entry<String, JsonNode>> fields = pattern.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> entry = fields.next();
+            String key = entry.getKey();
+            if (key.startsWith("$")) {
+                Node target = requireTopLevel(node, path);
+                for (Object segment : parsePath(key)) {
+                    target = segment instanceof Integer index ? target.element(index, key) : target.field((String) segment, key);
+                }
+                add(target, entry.getValue(), key, ruleCount);
+            } else {
+                add(node.field(key, path + "." + key), entry.getValue(), path + "." + key, ruleCount);
+            }
+        }
+    }
+
+    private static void add(Node node, JsonNode pattern, String path, int[] ruleCount) {
+        if (pattern.isObject()) {
+            node.expectContainer(path);
+            addObject(node, pattern, path, ruleCount);
+        } else if (pattern.isArray()) {
+            node.expectContainer(path);
+            for (int i = 0; i < pattern.size(); i++) {
+                add(node.element(i, path), pattern.get(i), path + "[" + i + "]", ruleCount);
+            }
+        } else {
+            if (node.leaf != null || node.fields != null || node.elements != null) {
+                throw new InvalidMockDefinitionException("requestBodyPattern has conflicting rules for " + path);
+            }
+            if (ruleCount[0] == MAX_RULES) {
+                throw new InvalidMockDefinitionException("requestBodyPattern supports at most " + MAX_RULES + " rules");
+            }
+            node.leaf = new Leaf(pattern, 1L << ruleCount[0]++);
+        }
+    }
+
+    private static Node requireTopLevel(Node node, String path) {
+        if (!"$".equals(path)) {
+            throw new InvalidMockDefinitionException("Path keys are only allowed at the top level of requestBodyPattern");
+        }
+        return node;
+    }
+
+    static List<Object> parsePath(String path) {
+        List<Object> segments = new ArrayList<>();
+        int i = 1; // skip '$'
+        while (i < path.length()) {
+            char c = path.charAt(i);
+            if (c == '.') {
+                int end = i + 1;
+                while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                    end++;
+                }
+                if (end == i + 1) {
+                    throw new InvalidMockDefinitionException("Empty field name in path " + path);
+                }
+                segments.add(path.substring(i + 1, end));
+                i = end;
+            } else if (c == '[') {
+                int close = path.indexOf(']', i);
+                if (close < 0) {
+                    throw new InvalidMockDefinitionException("Unclosed '[' in path " + path);
+                }
+                String inner = path.substring(i + 1, close).trim();
+                if (inner.length() >= 2 && (inner.charAt(0) == '\'' || inner.charAt(0) == '"')) {
+                    segments.add(inner.substring(1, inner.length() - 1));
+                } else {
+                    try {
+                        segments.add(Integer.valueOf(inner));
+                    } catch (NumberFormatException e) {
+                        throw new InvalidMockDefinitionException("Invalid index '" + inner + "' in path " + path, e);
+                    }
+                }
+                i = close + 1;
+            } else {
+                throw new InvalidMockDefinitionException("Unexpected '" + c + "' in path " + path);
+            }
+        }
+        if (segments.isEmpty()) {
+            throw new InvalidMockDefinitionException("Path " + path + " does not select a field");
+        }
+        return segments;
+    }
+
+    private static final class Node {
+
+        Map<String, Node> fields;
+        Node[] elements;
+        Leaf leaf;
+
+        Node field(String name, String path) {
+            expectContainer(path);
+            if (fields == null) {
+                fields = new HashMap<>();
+            }
+            return fields.computeIfAbsent(name, n -> new Node());
+        }
+
+        Node element(int index, String path) {
+            expectContainer(path);
+            if (index < 0) {
+                throw new InvalidMockDefinitionException("Negative index in path " + path);
+            }
+            if (elements == null || elements.length <= index) {
+                Node[] grown = new Node[index + 1];
+                if (elements != null) {
+                    System.arraycopy(elements, 0, grown, 0, elements.length);
+                }
+                elements = grown;
+            }
+            if (elements[index] == null) {
+                elements[index] = new Node();
+            }
+            return elements[index];
+        }
+
+        void expectContainer(String path) {
+            if (leaf != null) {
+                throw new InvalidMockDefinitionException("requestBodyPattern has conflicting rules for " + path);
+            }
+        }
+    }
+
+    private static final class Leaf {
+
+        final long bit;
+        final ValueMatcher rule;
+        final JsonNode literal;
+
+        Leaf(JsonNode pattern, long bit) {
+            this.bit = bit;
+            this.rule = pattern.isTextual() ? ValueMatcher.compileBodyRule(pattern.textValue()) : null;
+            this.literal = pattern.isTextual() ? null : pattern;
+        }
+
+        boolean test(JsonParser parser, JsonToken token) throws IOException {
+            switch (token) {
+                case VALUE_STRING:
+                    return rule != null && rule.matches(parser.getText());
+                case VALUE_NUMBER_INT:
+                case VALUE_NUMBER_FLOAT:
+                    if (rule != null) {
+                        return rule.isRange() ? rule.matches(parser.getDoubleValue()) : rule.matches(parser.getText());
+                    }
+                    return literal.isNumber() && literal.doubleValue() == parser.getDoubleValue();
+                case VALUE_TRUE:
+                case VALUE_FALSE:
+                    boolean value = token == JsonToken.VALUE_TRUE;
+                    if (rule != null) {
+                        return rule.matches(value ? "true" : "false");
+                    }
+                    return literal.isBoolean() && literal.booleanValue() == value;
+                case VALUE_NULL:
+                    return literal != null && literal.isNull();
+                default:
+                    return false; // a leaf rule never matches an object or array
+            }
+        }
+    }
+}
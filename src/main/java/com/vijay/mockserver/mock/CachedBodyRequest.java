@@ -0,0 +1,125 @@
+package com.vijay.mockserver.mock;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * Request wrapper that reads the body at most once, on first use, and lets
+ * body matching, templating and any later reader see the same bytes.
+ */
+public class CachedBodyRequest extends HttpServletRequestWrapper {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private byte[] body;
+    private Map<String, String> pathVariables = Map.of();
+    // Time spent on each kind of matching rule, over all candidates tried
+    private long headerNanos;
+    private long queryNanos;
+    private long bodyNanos;
+
+    public CachedBodyRequest(HttpServletRequest request) {
+        super(request);
+    }
+
+    /**
+     * The full request body, read from the underlying stream on the first call.
+     */
+    public byte[] getCachedBody() {
+        if (body == null) {
+            try {
+                byte[] read = super.getInputStream().readAllBytes();
+                body = read.length == 0 ? EMPTY : read;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read request body", e);
+            }
+        }
+        return body;
+    }
+
+    /**
+     * Value of a {@code {name}} segment of the matched endpoint, or null.
+     */
+    public String getPathVariable(String name) {
+        return pathVariables.get(name);
+    }
+
+    void setPathVariables(Map<String, String> pathVariables) {
+        this.pathVariables = pathVariables;
+    }
+
+    void addRuleNanos(ServingMetrics.Stage stage, long nanos) {
+        switch (stage) {
+            case HEADERS -> headerNanos += nanos;
+            case QUERY -> queryNanos += nanos;
+            case BODY -> bodyNanos += nanos;
+            default -> throw new IllegalArgumentException("Not a matching stage: " + stage);
+        }
+    }
+
+    long getRuleNanos(ServingMetrics.Stage stage) {
+        return switch (stage) {
+            case HEADERS -> headerNanos;
+            case QUERY -> queryNanos;
+            case BODY -> bodyNanos;
+            default -> 0;
+        };
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        ByteArrayInputStream in = new ByteArrayInputStream(getCachedBody());
+        return new ServletInputStream() {
+            @Override
+            public int read() {
+                return in.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                return in.read(b, off, len);
+            }
+
+            @Override
+            public boolean isFinished() {
+                return in.available() == 0;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setReadListener(ReadListener listener) {
+                // The whole body is already in memory: hand it over at once
+                try {
+                    if (in.available() > 0) {
+                        listener.onDataAvailable();
+                    }
+                    listener.onAllDataRead();
+                } catch (IOException | RuntimeException e) {
+                    listener.onError(e);
+                }
+            }
+        };
+    }
+
+    @Override
+    public BufferedReader getReader() {
+        String encoding = getCharacterEncoding();
+        Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+        return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+    }
+}
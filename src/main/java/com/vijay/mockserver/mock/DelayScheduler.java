@@ -0,0 +1,47 @@
+package com.vijay.mockserver.mock;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Timer for delayed mock responses and throttle ticks. A pending delay is
+ * only a queue entry, so in-flight delayed responses hold no request threads.
+ * Tasks must not block: the few scheduler threads only hand a due response
+ * to a container thread, or push a non-blocking write.
+ */
+@Component
+public class DelayScheduler {
+
+    private final ScheduledThreadPoolExecutor executor;
+
+    public DelayScheduler(@Value("${app.mock.delay.threads:2}") int threads, MeterRegistry registry) {
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(threads, r -> {
+            Thread thread = new Thread(r, "mock-delay-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Cancelled delays (client gone, async timeout) leave the queue immediately
+        this.executor.setRemoveOnCancelPolicy(true);
+        Gauge.builder("mock.delay.pending", executor, e -> e.getQueue().size())
+                .description("Delayed mock responses waiting to be sent").register(registry);
+    }
+
+    public ScheduledFuture<?> schedule(Runnable task, long delayMs) {
+        return executor.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
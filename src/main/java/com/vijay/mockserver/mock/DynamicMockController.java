@@ -1,112 +1,361 @@
 package com.vijay.mockserver.mock;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Optional;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.vijay.mockserver.user.User;
-import com.vijay.mockserver.user.UserRepository;
+import com.vijay.mockserver.journal.JournalEntry;
+import com.vijay.mockserver.journal.RequestJournal;
+import com.vijay.mockserver.websocket.LiveTrafficFeed;
 
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 @RestController
 @RequestMapping("/mock")
 public class DynamicMockController {
 
-    private final MockEndpointService service;
-    private final UserRepository userRepository;
-    private final ObjectMapper objectMapper;
-    private final TemplatingService templatingService;
-
-    public DynamicMockController(MockEndpointService service, UserRepository userRepository,
-            ObjectMapper objectMapper, TemplatingService templatingService) {
-        this.service = service;
-        this.userRepository = userRepository;
-        this.objectMapper = objectMapper;
-        this.templatingService = templatingService;
+    private static final byte[] NO_USER = "{\"error\":\"No user found for the given username or authentication\"}"
+            .getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NO_MOCK = "{\"error\":\"No mock configured for this route\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private static final ServingMetrics.Stage[] MATCHING_STAGES = {
+            ServingMetrics.Stage.HEADERS, ServingMetrics.Stage.QUERY, ServingMetrics.Stage.BODY };
+
+    // Headroom over the requested delay before the container gives up on the async request
+    private static final long ASYNC_TIMEOUT_MARGIN_MS = 5_000;
+
+    private final MockRouteTable routeTable;
+    private final RequestMatchingService requestMatchingService;
+    private final DelayScheduler delayScheduler;
+    private final ServingMetrics servingMetrics;
+    private final RequestJournal journal;
+    private final LiveTrafficFeed trafficFeed;
+    private final ThrottledBodyWriter throttledWriter;
+
+    public DynamicMockController(MockRouteTable routeTable, RequestMatchingService requestMatchingService,
+            DelayScheduler delayScheduler, ServingMetrics servingMetrics, RequestJournal journal,
+            LiveTrafficFeed trafficFeed, ThrottledBodyWriter throttledWriter) {
+        this.routeTable = routeTable;
+        this.requestMatchingService = requestMatchingService;
+        this.delayScheduler = delayScheduler;
+        this.servingMetrics = servingMetrics;
+        this.journal = journal;
+        this.trafficFeed = trafficFeed;
+        this.throttledWriter = throttledWriter;
     }
 
     @RequestMapping(value = "/**", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<String> handleDynamicEndpoint(@RequestHeader(value = "X-Mock-User", required = false) String username,
+    public void handleDynamicEndpoint(@RequestHeader(value = "X-Mock-User", required = false) String username,
             @RequestHeader(value = "X-Delay-Override", required = false) Long delayOverride,
             @RequestHeader(value = "X-Status-Override", required = false) Integer statusOverride,
             @RequestHeader(value = "X-HTTP-Method-Override", required = false) String methodOverride,
-            HttpServletRequest request) throws Exception {
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
 
+        long start = System.nanoTime();
         String method = (methodOverride != null ? methodOverride : request.getMethod()).toUpperCase();
         String path = request.getRequestURI().substring(5); // remove /mock
 
-        Optional<User> ownerOpt = resolveOwner(username);
-        if (ownerOpt.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .body("{\"error\":\"No user found for the given username or authentication\"}");
+        Optional<MockRouteTable.UserRoutes> ownerRoutes = resolveOwner(username);
+        long resolved = System.nanoTime();
+        if (ownerRoutes.isEmpty()) {
+            ServingMetrics.RouteMeters meters = servingMetrics.unmatched();
+            meters.stage(ServingMetrics.Stage.OWNER, resolved - start);
+            int bytes = write(meters, response, HttpStatus.NOT_FOUND.value(), NO_USER, null);
+            long elapsed = System.nanoTime() - start;
+            meters.processing(elapsed);
+            journal(null, method, path, request.getQueryString(), null, response.getStatus(), bytes, elapsed, 0);
+            return;
         }
-        User owner = ownerOpt.get();
-        Optional<MockEndpoint> found = service.findBestMatchForRequest(owner, path, method, request);
+        CachedBodyRequest mockRequest = new CachedBodyRequest(request);
+        Optional<RouteMatch> found = ownerRoutes.get().match(method, MockEndpointService.normalizeEndpoint(path),
+                candidates -> requestMatchingService.findBestMatch(candidates, mockRequest));
+        ServingMetrics.RouteMeters meters = found.isPresent() ? found.get().route().getMeters() : servingMetrics.unmatched();
+        recordMatching(meters, mockRequest, start, resolved, System.nanoTime());
         if (found.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .body("{\"error\":\"No mock configured for this route\"}");
+            int bytes = write(meters, response, HttpStatus.NOT_FOUND.value(), NO_MOCK, null);
+            long elapsed = System.nanoTime() - start;
+            meters.processing(elapsed);
+            journal(ownerRoutes.get(), method, path, request.getQueryString(), null, response.getStatus(), bytes,
+                    elapsed, 0);
+            return;
         }
-        MockEndpoint mock = found.get();
+        MockRoute mock = found.get().route();
+        mockRequest.setPathVariables(found.get().pathVariables());
 
-        int delay = (mock.getDelayMs() != null) ? mock.getDelayMs().intValue() : 0;
-        if (delayOverride != null) {
-            delay = delayOverride.intValue();
+        int status = statusOverride != null ? statusOverride : mock.getStatusCode();
+        long delay = delayOverride != null ? Math.min(delayOverride, LatencyProfile.MAX_DELAY_MS) : mock.sampleDelayMs();
+        MockRouteTable.UserRoutes owner = ownerRoutes.get();
+        String query = request.getQueryString();
+        if (delay <= 0 && mock.getBytesPerSecond() <= 0) {
+            int bytes = respond(mock, status, method, mockRequest, response, null);
+            long elapsed = System.nanoTime() - start;
+            meters.processing(elapsed);
+            journal(owner, method, path, query, mock.getId(), response.getStatus(), bytes, elapsed, 0);
+            return;
         }
+        // Neither the delay nor a throttled body holds this thread: the timer hands the
+        // response to a container thread once the delay is up, and the throttle's ticks send the body
+        AsyncContext async = request.startAsync();
+        async.setTimeout(Math.max(delay, 0) + ASYNC_TIMEOUT_MARGIN_MS);
+        long scheduled = System.nanoTime();
+        DelayedResponse delayed = new DelayedResponse(async, () -> {
+            long fired = System.nanoTime();
+            long waited = delay > 0 ? fired - scheduled : 0;
+            if (delay > 0) {
+                meters.delay(waited);
+            }
+            int bytes = respond(mock, status, method, mockRequest, response, async);
+            long elapsed = scheduled - start + System.nanoTime() - fired;
+            meters.processing(elapsed);
+            journal(owner, method, path, query, mock.getId(), response.getStatus(), bytes, elapsed, waited);
+            return isThrottled(mock.getBytesPerSecond(), bytes);
+        });
+        async.addListener(delayed);
         if (delay > 0) {
-            Thread.sleep(delay);
+            delayed.pending = delayScheduler.schedule(delayed::dispatch, delay);
+        } else {
+            delayed.run();
+        }
+    }
+
+    /**
+     * Split the time up to a match into owner resolution, each kind of rule,
+     * and the rest: walking the trie and trying candidates.
+     */
+    private static void recordMatching(ServingMetrics.RouteMeters meters, CachedBodyRequest request,
+            long start, long resolved, long matched) {
+        meters.stage(ServingMetrics.Stage.OWNER, resolved - start);
+        long rules = 0;
+        for (ServingMetrics.Stage stage : MATCHING_STAGES) {
+            long nanos = request.getRuleNanos(stage);
+            if (nanos > 0) {
+                meters.stage(stage, nanos);
+                rules += nanos;
+            }
         }
+        meters.stage(ServingMetrics.Stage.LOOKUP, Math.max(0, matched - resolved - rules));
+    }
+
+    /**
+     * Hand the request to the {@link RequestJournal} and the
+     * {@link LiveTrafficFeed}; only offers to their buffers happen on this thread.
+     */
+    private void journal(MockRouteTable.UserRoutes owner, String method, String path, String query, Long mockId,
+            int status, int bytes, long processingNanos, long delayNanos) {
+        JournalEntry entry = new JournalEntry(System.currentTimeMillis(),
+                owner != null ? owner.getUserId() : null, owner != null ? owner.getUsername() : null,
+                method, path, query, status, mockId, bytes,
+                TimeUnit.NANOSECONDS.toMicros(processingNanos), TimeUnit.NANOSECONDS.toMillis(delayNanos));
+        journal.publish(entry);
+        trafficFeed.publish(entry);
+    }
 
-        int status = (mock.getStatusCode() != null) ? mock.getStatusCode().intValue() : 200;
-        if (statusOverride != null) {
-            status = statusOverride;
+    /**
+     * @param async the request's async context, so a throttled body can be
+     *              sent from the throttle's ticks; null to send at full speed
+     * @return the body bytes sent
+     */
+    private int respond(MockRoute mock, int status, String method, CachedBodyRequest request,
+            HttpServletResponse response, AsyncContext async) throws IOException {
+        int bytesPerSecond = async != null ? mock.getBytesPerSecond() : 0;
+        ServingMetrics.RouteMeters meters = mock.getMeters();
+        // Static bodies are serialized once per distinct body; only templates render per request
+        ResponseBodyStore.Content content = mock.getContent();
+        byte[] body = content.body();
+        if (body == null) {
+            long start = System.nanoTime();
+            byte[] rendered = content.template().render(request).getBytes(StandardCharsets.UTF_8);
+            meters.stage(ServingMetrics.Stage.RENDER, System.nanoTime() - start);
+            return write(meters, response, status, rendered, null, async, bytesPerSecond);
         }
-        String responseBody = mock.getResponseJson();
+        String etag = content.etag();
+        boolean safe = "GET".equals(method) || "HEAD".equals(method);
+        if (safe && isSuccess(status) && etagMatches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            response.setHeader(HttpHeaders.ETAG, etag);
+            meters.size(0);
+            return 0;
+        }
+        return write(meters, response, status, body, isSuccess(status) ? etag : null, async, bytesPerSecond);
+    }
 
-        // Process template if it contains Handlebars syntax
-        if (responseBody.contains("{{") && responseBody.contains("}}")) {
-            responseBody = templatingService.processTemplateWithRequest(responseBody, request);
+    private static int write(ServingMetrics.RouteMeters meters, HttpServletResponse response, int status, byte[] body,
+            String etag) throws IOException {
+        long start = System.nanoTime();
+        setHeaders(response, status, body.length, etag);
+        response.getOutputStream().write(body);
+        meters.stage(ServingMetrics.Stage.WRITE, System.nanoTime() - start);
+        meters.size(body.length);
+        return body.length;
+    }
+
+    /**
+     * Like {@link #write(ServingMetrics.RouteMeters, HttpServletResponse, int, byte[], String)},
+     * but a throttled body is handed to the {@link ThrottledBodyWriter}, which
+     * then completes {@code async}; WRITE only covers the hand-off.
+     */
+    private int write(ServingMetrics.RouteMeters meters, HttpServletResponse response, int status, byte[] body,
+            String etag, AsyncContext async, int bytesPerSecond) throws IOException {
+        if (!isThrottled(bytesPerSecond, body.length)) {
+            return write(meters, response, status, body, etag);
         }
+        long start = System.nanoTime();
+        setHeaders(response, status, body.length, etag);
+        throttledWriter.write(async, response, body, bytesPerSecond);
+        meters.stage(ServingMetrics.Stage.WRITE, System.nanoTime() - start);
+        meters.size(body.length);
+        return body.length;
+    }
 
-        if (!isJson(responseBody)) {
-            responseBody = objectMapper.writeValueAsString(objectMapper.readTree(new String(responseBody.getBytes(StandardCharsets.UTF_8))));
+    private static void setHeaders(HttpServletResponse response, int status, int length, String etag) {
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(length);
+        if (etag != null) {
+            response.setHeader(HttpHeaders.ETAG, etag);
         }
+    }
+
+    private static boolean isThrottled(int bytesPerSecond, int bytes) {
+        return bytesPerSecond > 0 && bytes > 0;
+    }
 
-        // Metrics recording removed for simplicity
-        return ResponseEntity.status(status)
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(responseBody);
+    private static boolean isSuccess(int status) {
+        return status >= 200 && status < 300;
     }
 
-    private boolean isJson(String s) {
-        try {
-            objectMapper.readTree(s);
-            return true;
-        } catch (com.fasterxml.jackson.core.JsonProcessingException | IllegalArgumentException e) {
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
             return false;
         }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    private Optional<User> resolveOwner(String usernameHeader) {
+    private Optional<MockRouteTable.UserRoutes> resolveOwner(String usernameHeader) {
         if (usernameHeader != null && !usernameHeader.isBlank()) {
-            return userRepository.findByUsername(usernameHeader);
+            return routeTable.routesFor(usernameHeader);
         }
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String username = auth != null ? auth.getName() : null;
         if (username == null) {
             return Optional.empty();
         }
-        return userRepository.findByUsername(username);
+        return routeTable.routesFor(username);
+    }
+
+    @FunctionalInterface
+    private interface ResponseWriter {
+        /**
+         * @return true if the response completes later on its own, as a throttled body does
+         */
+        boolean write() throws IOException;
+    }
+
+    /**
+     * A response waiting on the {@link DelayScheduler}, or run right away
+     * when it is only throttled. The timer thread only dispatches it to a
+     * container thread, because rendering, loading the body and a blocking
+     * write to a slow client must not hold up other delays and throttle
+     * ticks. Whichever of send, timeout or client error comes first completes
+     * the async request; a throttled body is completed by the
+     * {@link ThrottledBodyWriter} once sent.
+     */
+    private static final class DelayedResponse implements Runnable, AsyncListener {
+
+        private final AsyncContext async;
+        private final ResponseWriter writer;
+        private final AtomicBoolean done = new AtomicBoolean();
+        volatile ScheduledFuture<?> pending;
+
+        DelayedResponse(AsyncContext async, ResponseWriter writer) {
+            this.async = async;
+            this.writer = writer;
+        }
+
+        /**
+         * Called on the timer once the delay is up.
+         */
+        void dispatch() {
+            if (done.get()) {
+                return;
+            }
+            try {
+                async.start(this);
+            } catch (IllegalStateException e) {
+                // Timed out or failed meanwhile and already completed
+            }
+        }
+
+        @Override
+        public void run() {
+            if (!done.compareAndSet(false, true)) {
+                return;
+            }
+            boolean completesLater = false;
+            try {
+                completesLater = writer.write();
+            } catch (IOException e) {
+                // Client went away; nothing more can be sent
+            } catch (RuntimeException e) {
+                if (!async.getResponse().isCommitted()) {
+                    ((HttpServletResponse) async.getResponse()).setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+                }
+            } finally {
+                if (!completesLater) {
+                    async.complete();
+                }
+            }
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            abandon();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            abandon();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+
+        private void abandon() {
+            if (done.compareAndSet(false, true)) {
+                ScheduledFuture<?> future = pending;
+                if (future != null) {
+                    future.cancel(false);
+                }
+                async.complete();
+            }
+        }
     }
 }
@@ -0,0 +1,111 @@
+package com.vijay.mockserver.mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Parsed form of a stored {@code endpoint}. Each {@code /}-separated segment
+ * is a literal, a {@code {name}} variable capturing one segment, a {@code *}
+ * matching any one segment, or, as the last segment only, {@code **} matching
+ * the rest of the path (including nothing).
+ */
+final class EndpointPattern {
+
+    enum Kind { LITERAL, VARIABLE, WILDCARD, TAIL }
+
+    private static final Pattern VARIABLE_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_.-]*");
+    private static final String[] NO_SEGMENTS = new String[0];
+
+    private final Kind[] kinds;
+    private final String[] segments;
+    private final String[] variableNames;
+
+    private EndpointPattern(Kind[] kinds, String[] segments, String[] variableNames) {
+        this.kinds = kinds;
+        this.segments = segments;
+        this.variableNames = variableNames;
+    }
+
+    /**
+     * @throws InvalidMockDefinitionException if a variable or wildcard is malformed
+     */
+    static EndpointPattern parse(String endpoint) {
+        String[] segments = split(endpoint);
+        Kind[] kinds = new Kind[segments.length];
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if (segment.equals("**")) {
+                if (i != segments.length - 1) {
+                    throw new InvalidMockDefinitionException("endpoint: '**' is only allowed as the last segment");
+                }
+                kinds[i] = Kind.TAIL;
+            } else if (segment.equals("*")) {
+                kinds[i] = Kind.WILDCARD;
+            } else if (segment.startsWith("{") && segment.endsWith("}")) {
+                String name = segment.substring(1, segment.length() - 1);
+                if (!VARIABLE_NAME.matcher(name).matches()) {
+                    throw new InvalidMockDefinitionException("endpoint: invalid path variable '" + segment + "'");
+                }
+                if (names.contains(name)) {
+                    throw new InvalidMockDefinitionException("endpoint: duplicate path variable '" + name + "'");
+                }
+                names.add(name);
+                kinds[i] = Kind.VARIABLE;
+            } else if (segment.indexOf('{') >= 0 || segment.indexOf('}') >= 0 || segment.indexOf('*') >= 0) {
+                throw new InvalidMockDefinitionException(
+                        "endpoint: '{name}', '*' and '**' must each be a whole segment, got '" + segment + "'");
+            } else {
+                kinds[i] = Kind.LITERAL;
+            }
+        }
+        return new EndpointPattern(kinds, segments, names.toArray(NO_SEGMENTS));
+    }
+
+    /**
+     * Like {@link #parse} for endpoints that are already stored: one that is
+     * not a valid pattern is matched literally, as it was before patterns existed.
+     */
+    static EndpointPattern parseOrLiteral(String endpoint) {
+        try {
+            return parse(endpoint);
+        } catch (InvalidMockDefinitionException e) {
+            String[] segments = split(endpoint);
+            Kind[] kinds = new Kind[segments.length];
+            Arrays.fill(kinds, Kind.LITERAL);
+            return new EndpointPattern(kinds, segments, NO_SEGMENTS);
+        }
+    }
+
+    /**
+     * Segments of a normalized path; {@code "/"} has none, a trailing slash
+     * yields a trailing empty segment so {@code /a/} and {@code /a} stay distinct.
+     */
+    static String[] split(String path) {
+        if (path == null || path.isEmpty() || path.equals("/")) {
+            return NO_SEGMENTS;
+        }
+        return (path.charAt(0) == '/' ? path.substring(1) : path).split("/", -1);
+    }
+
+    int length() {
+        return segments.length;
+    }
+
+    Kind kind(int i) {
+        return kinds[i];
+    }
+
+    String segment(int i) {
+        return segments[i];
+    }
+
+    /**
+     * Names of the {@code {name}} segments, in path order.
+     */
+    String[] variableNames() {
+        return variableNames;
+    }
+}
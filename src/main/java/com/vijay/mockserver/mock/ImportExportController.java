@@ -1,21 +1,22 @@
 package com.vijay.mockserver.mock;
 
 import com.vijay.mockserver.user.User;
+import com.vijay.mockserver.user.UserIdentityCache;
 import com.vijay.mockserver.user.UserRepository;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/mocks")
@@ -23,50 +24,33 @@ public class ImportExportController {
 
     private final ImportExportService importExportService;
     private final UserRepository userRepository;
+    private final UserIdentityCache userIdentityCache;
 
-    public ImportExportController(ImportExportService importExportService, UserRepository userRepository) {
+    public ImportExportController(ImportExportService importExportService, UserRepository userRepository,
+                                  UserIdentityCache userIdentityCache) {
         this.importExportService = importExportService;
         this.userRepository = userRepository;
+        this.userIdentityCache = userIdentityCache;
     }
 
     @GetMapping("/export")
-    public ResponseEntity<String> exportMocks() {
-        User user = getCurrentUser();
-        String jsonData = importExportService.exportMocks(user);
-        
-        String filename = "mocks_export_" + 
-            LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".json";
-        
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setContentDispositionFormData("attachment", filename);
-        
-        return ResponseEntity.ok()
-                .headers(headers)
-                .body(jsonData);
+    public ResponseEntity<StreamingResponseBody> exportMocks(
+            @RequestParam(value = "format", defaultValue = "json") String format,
+            @RequestParam(value = "gzip", defaultValue = "false") boolean gzip) {
+        return export("mocks_export_", null, format, gzip);
     }
 
     @PostMapping("/export/selected")
-    public ResponseEntity<String> exportSelectedMocks(@RequestBody List<Long> mockIds) {
-        User user = getCurrentUser();
-        String jsonData = importExportService.exportMocksByIds(user, mockIds);
-        
-        String filename = "selected_mocks_export_" + 
-            LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".json";
-        
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setContentDispositionFormData("attachment", filename);
-        
-        return ResponseEntity.ok()
-                .headers(headers)
-                .body(jsonData);
+    public ResponseEntity<StreamingResponseBody> exportSelectedMocks(@RequestBody List<Long> mockIds,
+            @RequestParam(value = "format", defaultValue = "json") String format,
+            @RequestParam(value = "gzip", defaultValue = "false") boolean gzip) {
+        return export("selected_mocks_export_", mockIds, format, gzip);
     }
 
     @PostMapping("/import")
-    public ResponseEntity<ImportExportService.ImportResult> importMocks(@RequestBody String jsonData) {
+    public ResponseEntity<ImportExportService.ImportResult> importMocks(InputStream body) {
         User user = getCurrentUser();
-        ImportExportService.ImportResult result = importExportService.importMocks(user, jsonData);
+        ImportExportService.ImportResult result = importExportService.importMocks(user, body);
         return ResponseEntity.ok(result);
     }
 
@@ -74,9 +58,9 @@ public class ImportExportController {
     public ResponseEntity<ImportExportService.ImportResult> importMocksFromFile(@RequestParam("file") MultipartFile file) {
         try {
             User user = getCurrentUser();
-            String jsonData = new String(file.getBytes(), StandardCharsets.UTF_8);
-            ImportExportService.ImportResult result = importExportService.importMocks(user, jsonData);
-            return ResponseEntity.ok(result);
+            try (InputStream in = file.getInputStream()) {
+                return ResponseEntity.ok(importExportService.importMocks(user, in));
+            }
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
@@ -95,6 +79,8 @@ public class ImportExportController {
                   "responseJson": "{\\"users\\": [{\\"id\\": 1, \\"name\\": \\"John Doe\\"}]}",
                   "statusCode": 200,
                   "delayMs": 0,
+                  "latencyProfile": "{\\"type\\": \\"lognormal\\", \\"median\\": 40, \\"p99\\": 400}",
+                  "bytesPerSecond": null,
                   "requestHeaders": "{\\"Authorization\\": \\"Bearer.*\\"}",
                   "queryParameters": "{\\"page\\": \\"\\\\d+\\"}",
                   "requestBodyPattern": null,
@@ -114,9 +100,44 @@ public class ImportExportController {
                 .body(template);
     }
 
+    /**
+     * The body is written after the handler returns, on an async thread, so the
+     * caller is resolved here while the security context is still at hand.
+     */
+    private ResponseEntity<StreamingResponseBody> export(String prefix, List<Long> ids, String format, boolean gzip) {
+        ImportExportService.ExportFormat exportFormat = "ndjson".equalsIgnoreCase(format)
+                ? ImportExportService.ExportFormat.NDJSON : ImportExportService.ExportFormat.JSON;
+        Long userId = userIdentityCache.current().getId();
+
+        String filename = prefix + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"))
+                + (exportFormat == ImportExportService.ExportFormat.NDJSON ? ".ndjson" : ".json")
+                + (gzip ? ".gz" : "");
+
+        HttpHeaders headers = new HttpHeaders();
+        if (gzip) {
+            headers.setContentType(MediaType.parseMediaType("application/gzip"));
+        } else if (exportFormat == ImportExportService.ExportFormat.NDJSON) {
+            headers.setContentType(MediaType.APPLICATION_NDJSON);
+        } else {
+            headers.setContentType(MediaType.APPLICATION_JSON);
+        }
+        headers.setContentDispositionFormData("attachment", filename);
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream zipped = new GZIPOutputStream(out, 8192);
+                importExportService.exportMocks(userId, ids, exportFormat, zipped);
+                zipped.finish();
+            } else {
+                importExportService.exportMocks(userId, ids, exportFormat, out);
+            }
+        };
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(body);
+    }
+
     private User getCurrentUser() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String username = auth.getName();
-        return userRepository.findByUsername(username).orElseThrow();
+        return userRepository.getReferenceById(userIdentityCache.current().getId());
     }
 }
@@ -1,84 +1,214 @@
 package com.vijay.mockserver.mock;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.vijay.mockserver.mock.dto.MockEndpointRequest;
 import com.vijay.mockserver.mock.dto.MockEndpointResponse;
 import com.vijay.mockserver.user.User;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Objects;
+import java.util.stream.Stream;
 
 @Service
 public class ImportExportService {
 
+    private static final int EXPORT_ID_CHUNK = 1000;
+
     private final MockEndpointService mockEndpointService;
+    private final MockEndpointRepository mockEndpointRepository;
+    private final EntityManager entityManager;
+    private final MockEndpointBatchWriter batchWriter;
+    private final MockEndpointHeads heads;
+    private final ResponseBodyStore bodies;
+    private final TransactionTemplate transactionTemplate;
     private final ObjectMapper objectMapper;
+    private final int batchSize;
 
-    public ImportExportService(MockEndpointService mockEndpointService, ObjectMapper objectMapper) {
+    public ImportExportService(MockEndpointService mockEndpointService, MockEndpointRepository mockEndpointRepository,
+                               EntityManager entityManager, MockEndpointBatchWriter batchWriter,
+                               MockEndpointHeads heads, ResponseBodyStore bodies, TransactionTemplate transactionTemplate, ObjectMapper objectMapper,
+                               @Value("${app.import.batch-size:500}") int batchSize) {
         this.mockEndpointService = mockEndpointService;
+        this.mockEndpointRepository = mockEndpointRepository;
+        this.entityManager = entityManager;
+        this.batchWriter = batchWriter;
+        this.heads = heads;
+        this.bodies = bodies;
+        this.transactionTemplate = transactionTemplate;
         this.objectMapper = objectMapper;
+        this.batchSize = Math.max(1, batchSize);
     }
 
     /**
-     * Export all mocks for a user as JSON
+     * Write a user's mocks, or just the ones in {@code ids}, in constant
+     * memory: rows are read through a cursor in one read-only transaction,
+     * written one at a time and detached right after.
      */
-    public String exportMocks(User user) {
+    public void exportMocks(Long userId, Collection<Long> ids, ExportFormat format, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        if (format == ExportFormat.NDJSON) {
+            generator.setRootValueSeparator(null);
+        } else {
+            generator.writeStartObject();
+            generator.writeStringField("version", "1.0");
+            generator.writeNumberField("timestamp", System.currentTimeMillis());
+            generator.writeArrayFieldStart("mocks");
+        }
+        TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnly.setReadOnly(true);
         try {
-            List<MockEndpointResponse> mocks = mockEndpointService.listForCurrentUser();
-            ExportData exportData = new ExportData();
-            exportData.setVersion("1.0");
-            exportData.setTimestamp(System.currentTimeMillis());
-            exportData.setMocks(mocks);
-            return objectMapper.writeValueAsString(exportData);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to export mocks", e);
+            readOnly.executeWithoutResult(status -> {
+                if (ids == null) {
+                    try (Stream<MockEndpoint> rows = mockEndpointRepository.streamByUserId(userId)) {
+                        writeRows(rows, generator, format);
+                    }
+                    return;
+                }
+                // Sorted, bounded IN lists keep id order and stay under driver parameter limits
+                List<Long> sorted = ids.stream().filter(Objects::nonNull).distinct().sorted().toList();
+                for (int from = 0; from < sorted.size(); from += EXPORT_ID_CHUNK) {
+                    List<Long> chunk = sorted.subList(from, Math.min(sorted.size(), from + EXPORT_ID_CHUNK));
+                    try (Stream<MockEndpoint> rows = mockEndpointRepository.streamByUserIdAndIdIn(userId, chunk)) {
+                        writeRows(rows, generator, format);
+                    }
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
+        if (format != ExportFormat.NDJSON) {
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        generator.flush();
+    }
+
+    private void writeRows(Stream<MockEndpoint> rows, JsonGenerator generator, ExportFormat format) {
+        rows.forEach(row -> {
+            try {
+                objectMapper.writeValue(generator, mockEndpointService.toDto(row));
+                if (format == ExportFormat.NDJSON) {
+                    generator.writeRaw('\n');
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            entityManager.detach(row);
+            if (row.getBody() != null) {
+                entityManager.detach(row.getBody()); // fetched with the row; shared bodies are re-read per row
+            }
+        });
     }
 
     /**
-     * Import mocks from JSON
+     * Import mocks from an export document ({@code {"mocks": [...]}} or a bare
+     * array), read as a stream one mock at a time. Valid mocks are inserted in
+     * batches of {@code app.import.batch-size}, each batch in its own
+     * transaction; an invalid mock or a failed batch is reported per row and
+     * does not stop the rest.
      */
-    public ImportResult importMocks(User user, String jsonData) {
-        try {
-            ExportData exportData = objectMapper.readValue(jsonData, ExportData.class);
-            ImportResult result = new ImportResult();
-
-            for (MockEndpointResponse mock : exportData.getMocks()) {
-                try {
-                    MockEndpointRequest request = convertToRequest(mock);
-                    MockEndpointResponse created = mockEndpointService.create(request);
-                    result.addSuccess(created);
-                } catch (Exception e) {
-                    result.addError(mock, e.getMessage());
+    public ImportResult importMocks(User user, InputStream json) {
+        ImportResult result = new ImportResult();
+        Map<String, Integer> versions = batchWriter.latestVersions(user.getId());
+        List<MockEndpoint> batch = new ArrayList<>(batchSize);
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            if (seekMocksArray(parser)) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    JsonNode node = parser.readValueAsTree();
+                    MockEndpointResponse mock = null;
+                    try {
+                        mock = objectMapper.treeToValue(node, MockEndpointResponse.class);
+                        MockEndpoint row = mockEndpointService.fromRequest(user, convertToRequest(mock));
+                        String key = MockEndpointBatchWriter.versionKey(row.getMethod(), row.getEndpoint());
+                        row.setVersion(versions.merge(key, 1, Integer::sum));
+                        batch.add(row);
+                    } catch (Exception e) {
+                        result.addError(mock, e.getMessage());
+                    }
+                    if (batch.size() >= batchSize) {
+                        flush(batch, versions, result);
+                    }
+                }
+                if (parser.currentToken() != JsonToken.END_ARRAY) {
+                    result.addError(null, "Expected an array of mock objects");
                 }
+            } else {
+                result.addError(null, "No \"mocks\" array in import document");
             }
-
-            return result;
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to import mocks", e);
+        } catch (IOException e) {
+            result.addError(null, "Malformed import document: " + e.getMessage());
+        }
+        flush(batch, versions, result);
+        if (result.getSuccessCount() > 0) {
+            mockEndpointService.publishImport();
         }
+        return result;
     }
 
     /**
-     * Export specific mocks by IDs
+     * Insert one batch. If it fails, its rows are reported without the ids
+     * they were given and the version numbers they took are handed back, so
+     * later rows of the same endpoint and method stay consecutive.
      */
-    public String exportMocksByIds(User user, List<Long> mockIds) {
+    private void flush(List<MockEndpoint> batch, Map<String, Integer> versions, ImportResult result) {
+        if (batch.isEmpty()) {
+            return;
+        }
         try {
-            List<MockEndpointResponse> allMocks = mockEndpointService.listForCurrentUser();
-            List<MockEndpointResponse> selectedMocks = allMocks.stream()
-                    .filter(mock -> mockIds.contains(mock.getId()))
-                    .collect(Collectors.toList());
-
-            ExportData exportData = new ExportData();
-            exportData.setVersion("1.0");
-            exportData.setTimestamp(System.currentTimeMillis());
-            exportData.setMocks(selectedMocks);
-            return objectMapper.writeValueAsString(exportData);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to export selected mocks", e);
+            transactionTemplate.executeWithoutResult(status -> {
+                bodies.store(batch);
+                batchWriter.insert(batch);
+                heads.advance(batch.get(0).getUser().getId(), batch);
+            });
+            for (MockEndpoint row : batch) {
+                result.addSuccess(mockEndpointService.toDto(row));
+            }
+        } catch (RuntimeException e) {
+            for (MockEndpoint row : batch) {
+                row.setId(null);
+                versions.merge(MockEndpointBatchWriter.versionKey(row.getMethod(), row.getEndpoint()), -1, Integer::sum);
+                result.addError(mockEndpointService.toDto(row), "Batch insert failed: " + e.getMessage());
+            }
         }
+        batch.clear();
+    }
+
+    /**
+     * Advance the parser to the start of the mocks array, skipping other fields.
+     */
+    private static boolean seekMocksArray(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.START_ARRAY) {
+            return true;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            return false;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("mocks".equals(field) && value == JsonToken.START_ARRAY) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
     }
 
     private MockEndpointRequest convertToRequest(MockEndpointResponse response) {
@@ -87,6 +217,8 @@ public class ImportExportService {
         request.setMethod(response.getMethod());
         request.setResponseJson(response.getResponseJson());
         request.setDelayMs(response.getDelayMs());
+        request.setLatencyProfile(response.getLatencyProfile());
+        request.setBytesPerSecond(response.getBytesPerSecond());
         request.setStatusCode(response.getStatusCode());
         request.setRequestHeaders(response.getRequestHeaders());
         request.setQueryParameters(response.getQueryParameters());
@@ -96,35 +228,11 @@ public class ImportExportService {
         return request;
     }
 
-    public static class ExportData {
-
-        private String version;
-        private Long timestamp;
-        private List<MockEndpointResponse> mocks;
-
-        public String getVersion() {
-            return version;
-        }
-
-        public void setVersion(String version) {
-            this.version = version;
-        }
-
-        public Long getTimestamp() {
-            return timestamp;
-        }
-
-        public void setTimestamp(Long timestamp) {
-            this.timestamp = timestamp;
-        }
-
-        public List<MockEndpointResponse> getMocks() {
-            return mocks;
-        }
-
-        public void setMocks(List<MockEndpointResponse> mocks) {
-            this.mocks = mocks;
-        }
+    public enum ExportFormat {
+        /** One {@code {"version", "timestamp", "mocks": [...]}} document, as accepted by import. */
+        JSON,
+        /** One mock per line. */
+        NDJSON
     }
 
     public static class ImportResult {
@@ -0,0 +1,20 @@
+package com.vijay.mockserver.mock;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when a mock definition (matching rules, response template, ...) cannot
+ * be compiled, so bad input is rejected when the mock is saved.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidMockDefinitionException extends RuntimeException {
+
+    public InvalidMockDefinitionException(String message) {
+        super(message);
+    }
+
+    public InvalidMockDefinitionException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
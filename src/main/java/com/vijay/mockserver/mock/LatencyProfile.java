@@ -0,0 +1,185 @@
+package com.vijay.mockserver.mock;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Compiled {@code latencyProfile}: the distribution each response's delay is
+ * drawn from. Stored as a JSON object, one of
+ * <pre>
+ * {"type": "fixed", "ms": 120}
+ * {"type": "uniform", "min": 50, "max": 250}
+ * {"type": "normal", "mean": 120, "stddev": 30}
+ * {"type": "lognormal", "median": 80, "p99": 900}
+ * {"type": "empirical", "percentiles": {"50": 40, "90": 120, "99": 800, "99.9": 2500}}
+ * </pre>
+ * all in milliseconds. An empirical table is interpolated linearly between
+ * its percentiles, from 0 ms at p0 unless the table sets {@code "0"}; delays
+ * above its highest percentile repeat that value. Any type may add
+ * {@code "cap"} to bound the delays it draws. Mocks without a profile wait
+ * their fixed {@code delayMs}.
+ */
+public final class LatencyProfile {
+
+    /** Upper bound of every drawn delay */
+    static final long MAX_DELAY_MS = 600_000;
+
+    // z-score of the 99th percentile of a standard normal distribution
+    private static final double Z_99 = 2.3263478740408408;
+
+    private enum Type {
+        FIXED, UNIFORM, NORMAL, LOGNORMAL, EMPIRICAL
+    }
+
+    private final Type type;
+    private final double a;
+    private final double b;
+    private final double cap;
+    private final double[] percentiles;
+    private final double[] values;
+
+    private LatencyProfile(Type type, double a, double b, double cap, double[] percentiles, double[] values) {
+        this.type = type;
+        this.a = a;
+        this.b = b;
+        this.cap = Math.min(cap, MAX_DELAY_MS);
+        this.percentiles = percentiles;
+        this.values = values;
+    }
+
+    static LatencyProfile fixed(long ms) {
+        return new LatencyProfile(Type.FIXED, Math.max(0, ms), 0, MAX_DELAY_MS, null, null);
+    }
+
+    /**
+     * A delay drawn from this profile, in milliseconds.
+     */
+    public long sampleMs() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double ms;
+        switch (type) {
+            case FIXED:
+                ms = a;
+                break;
+            case UNIFORM:
+                ms = a + random.nextDouble() * (b - a);
+                break;
+            case NORMAL:
+                ms = a + b * random.nextGaussian();
+                break;
+            case LOGNORMAL:
+                ms = Math.exp(a + b * random.nextGaussian());
+                break;
+            default:
+                ms = empirical(random.nextDouble() * 100);
+        }
+        return Math.round(Math.max(0, Math.min(ms, cap)));
+    }
+
+    private double empirical(double percentile) {
+        int i = 1;
+        while (i < percentiles.length && percentiles[i] < percentile) {
+            i++;
+        }
+        if (i == percentiles.length) {
+            return values[values.length - 1];
+        }
+        double span = percentiles[i] - percentiles[i - 1];
+        double t = span > 0 ? (percentile - percentiles[i - 1]) / span : 1;
+        return values[i - 1] + t * (values[i] - values[i - 1]);
+    }
+
+    /**
+     * @throws InvalidMockDefinitionException if the profile is malformed
+     */
+    static LatencyProfile compile(JsonNode profile) {
+        JsonNode typeNode = profile.get("type");
+        if (typeNode == null || !typeNode.isTextual()) {
+            throw new InvalidMockDefinitionException("latencyProfile.type is required");
+        }
+        Type type;
+        try {
+            type = Type.valueOf(typeNode.asText().trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidMockDefinitionException("latencyProfile.type must be one of fixed, uniform, normal, "
+                    + "lognormal, empirical");
+        }
+        double cap = profile.has("cap") ? millis(profile, "cap") : MAX_DELAY_MS;
+        switch (type) {
+            case FIXED:
+                return new LatencyProfile(type, millis(profile, "ms"), 0, cap, null, null);
+            case UNIFORM: {
+                double min = millis(profile, "min");
+                double max = millis(profile, "max");
+                if (max < min) {
+                    throw new InvalidMockDefinitionException("latencyProfile.max must not be below min");
+                }
+                return new LatencyProfile(type, min, max, cap, null, null);
+            }
+            case NORMAL:
+                return new LatencyProfile(type, millis(profile, "mean"), millis(profile, "stddev"), cap, null, null);
+            case LOGNORMAL: {
+                double median = millis(profile, "median");
+                double p99 = millis(profile, "p99");
+                if (median <= 0 || p99 < median) {
+                    throw new InvalidMockDefinitionException("latencyProfile needs 0 < median <= p99");
+                }
+                return new LatencyProfile(type, Math.log(median), Math.log(p99 / median) / Z_99, cap, null, null);
+            }
+            default:
+                return empirical(profile.get("percentiles"), cap);
+        }
+    }
+
+    private static LatencyProfile empirical(JsonNode table, double cap) {
+        if (table == null || !table.isObject() || table.isEmpty()) {
+            throw new InvalidMockDefinitionException("latencyProfile.percentiles must be a non-empty object");
+        }
+        TreeMap<Double, Double> points = new TreeMap<>();
+        points.put(0.0, 0.0);
+        Iterator<Map.Entry<String, JsonNode>> fields = table.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            double percentile;
+            try {
+                percentile = Double.parseDouble(field.getKey());
+            } catch (NumberFormatException e) {
+                throw new InvalidMockDefinitionException("latencyProfile.percentiles key " + field.getKey()
+                        + " is not a number");
+            }
+            if (!(percentile >= 0 && percentile <= 100)) {
+                throw new InvalidMockDefinitionException("latencyProfile.percentiles keys must be within 0..100");
+            }
+            if (!field.getValue().isNumber() || field.getValue().asDouble() < 0) {
+                throw new InvalidMockDefinitionException("latencyProfile.percentiles." + field.getKey()
+                        + " must be a non-negative number");
+            }
+            points.put(percentile, field.getValue().asDouble());
+        }
+        double[] percentiles = new double[points.size()];
+        double[] values = new double[points.size()];
+        int i = 0;
+        for (Map.Entry<Double, Double> point : points.entrySet()) {
+            percentiles[i] = point.getKey();
+            values[i] = point.getValue();
+            if (i > 0 && values[i] < values[i - 1]) {
+                throw new InvalidMockDefinitionException("latencyProfile.percentiles must not decrease");
+            }
+            i++;
+        }
+        return new LatencyProfile(Type.EMPIRICAL, 0, 0, cap, percentiles, values);
+    }
+
+    private static double millis(JsonNode profile, String field) {
+        JsonNode value = profile.get(field);
+        if (value == null || !value.isNumber() || value.asDouble() < 0) {
+            throw new InvalidMockDefinitionException("latencyProfile." + field + " must be a non-negative number");
+        }
+        return value.asDouble();
+    }
+}
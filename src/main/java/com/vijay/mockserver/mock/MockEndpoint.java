@@ -1,5 +1,7 @@
 package com.vijay.mockserver.mock;
 
+import java.time.Instant;
+
 import com.vijay.mockserver.user.User;
 
 import jakarta.persistence.Column;
@@ -12,10 +14,15 @@ import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 
 @Entity
 @Table(name = "mock_endpoints", indexes = {
-    @Index(name = "idx_user_endpoint_method_version", columnList = "user_id,endpoint,method,version")
+    @Index(name = "idx_user_endpoint_method_version", columnList = "user_id,endpoint,method,version"),
+    // Keyset pages seek on (user_id, sort key, id)
+    @Index(name = "idx_user_id", columnList = "user_id,id"),
+    @Index(name = "idx_user_priority_id", columnList = "user_id,priority,id"),
+    @Index(name = "idx_body_hash", columnList = "body_hash")
 })
 public class MockEndpoint {
 
@@ -33,8 +40,15 @@ public class MockEndpoint {
     @Column(nullable = false, length = 10)
     private String method; // GET, POST, PUT, DELETE
 
-    @Column(name = "response_json", columnDefinition = "TEXT", nullable = false)
-    private String responseJson;
+    @Column(name = "body_hash", length = 64)
+    private String bodyHash; // see ResponseBodyStore
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "body_hash", insertable = false, updatable = false)
+    private ResponseBody body;
+
+    @Transient
+    private String responseJson; // set on new rows; loaded from body on first read otherwise
 
     @Column(name = "status_code", nullable = false)
     private Integer statusCode = 200;
@@ -42,6 +56,12 @@ public class MockEndpoint {
     @Column(name = "delay_ms", nullable = false)
     private Integer delayMs = 0;
 
+    @Column(name = "latency_profile", columnDefinition = "TEXT")
+    private String latencyProfile; // JSON delay distribution, see LatencyProfile; replaces delayMs when set
+
+    @Column(name = "bytes_per_second")
+    private Integer bytesPerSecond; // body send rate; null or 0 sends at full speed
+
     @Column(nullable = false)
     private Integer version = 1;
 
@@ -60,6 +80,9 @@ public class MockEndpoint {
     @Column(name = "is_active", nullable = false)
     private Boolean isActive = true; // Enable/disable mock
 
+    @Column(name = "superseded_at")
+    private Instant supersededAt; // Set once a newer version replaced this one as the live head
+
     public Long getId() {
         return id;
     }
@@ -92,12 +115,36 @@ public class MockEndpoint {
         this.method = method;
     }
 
+    /**
+     * The response body; for a loaded row this fetches the shared body on
+     * first call.
+     */
     public String getResponseJson() {
+        if (responseJson == null && body != null) {
+            responseJson = body.getContent();
+        }
         return responseJson;
     }
 
+    /**
+     * Set the body of a new row. {@link ResponseBodyStore#store} must run
+     * before the row is saved.
+     */
     public void setResponseJson(String responseJson) {
         this.responseJson = responseJson;
+        this.bodyHash = null;
+    }
+
+    public String getBodyHash() {
+        return bodyHash;
+    }
+
+    void setBodyHash(String bodyHash) {
+        this.bodyHash = bodyHash;
+    }
+
+    ResponseBody getBody() {
+        return body;
     }
 
     public Integer getStatusCode() {
@@ -116,6 +163,22 @@ public class MockEndpoint {
         this.delayMs = delayMs;
     }
 
+    public String getLatencyProfile() {
+        return latencyProfile;
+    }
+
+    public void setLatencyProfile(String latencyProfile) {
+        this.latencyProfile = latencyProfile;
+    }
+
+    public Integer getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    public void setBytesPerSecond(Integer bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
     public Integer getVersion() {
         return version;
     }
@@ -163,4 +226,12 @@ public class MockEndpoint {
     public void setIsActive(Boolean isActive) {
         this.isActive = isActive;
     }
+
+    public Instant getSupersededAt() {
+        return supersededAt;
+    }
+
+    public void setSupersededAt(Instant supersededAt) {
+        this.supersededAt = supersededAt;
+    }
 }
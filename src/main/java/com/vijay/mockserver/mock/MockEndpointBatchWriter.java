@@ -0,0 +1,113 @@
+package com.vijay.mockserver.mock;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.vijay.mockserver.common.Databases;
+
+/**
+ * Bulk writes of new mock versions. On PostgreSQL ids are taken from the id
+ * column's sequence in one round trip and the rows go out as a single JDBC
+ * batch; IDENTITY inserts through JPA would need one statement (and one id
+ * read-back) per row. Other databases fall back to JPA.
+ */
+@Component
+public class MockEndpointBatchWriter {
+
+    private static final String INSERT = "INSERT INTO mock_endpoints (id, user_id, endpoint, method, body_hash, "
+            + "status_code, delay_ms, version, request_headers, query_parameters, request_body_pattern, priority, "
+            + "is_active, latency_profile, bytes_per_second) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MockEndpointRepository repository;
+    private final boolean postgres;
+    private volatile String idSequence;
+
+    public MockEndpointBatchWriter(JdbcTemplate jdbcTemplate, MockEndpointRepository repository, DataSource dataSource) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.repository = repository;
+        this.postgres = Databases.isPostgres(dataSource);
+    }
+
+    /**
+     * Highest stored version per {@code method + " " + endpoint} of a user, in one grouped query.
+     */
+    public Map<String, Integer> latestVersions(Long userId) {
+        Map<String, Integer> versions = new HashMap<>();
+        jdbcTemplate.query("SELECT method, endpoint, MAX(version) FROM mock_endpoints WHERE user_id = ? "
+                + "GROUP BY method, endpoint",
+                rs -> {
+                    versions.put(versionKey(rs.getString(1), rs.getString(2)), rs.getInt(3));
+                }, userId);
+        return versions;
+    }
+
+    static String versionKey(String method, String endpoint) {
+        return method + " " + endpoint;
+    }
+
+    /**
+     * Insert the rows and assign their ids. Runs in the caller's transaction,
+     * after {@link ResponseBodyStore#store} stored their bodies.
+     */
+    public void insert(List<MockEndpoint> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        if (!postgres) {
+            repository.saveAll(rows);
+            return;
+        }
+        List<Long> ids = jdbcTemplate.queryForList("SELECT nextval(?::regclass) FROM generate_series(1, ?)",
+                Long.class, idSequence(), rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            rows.get(i).setId(ids.get(i));
+        }
+        jdbcTemplate.batchUpdate(INSERT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                MockEndpoint row = rows.get(i);
+                ps.setLong(1, row.getId());
+                ps.setLong(2, row.getUser().getId());
+                ps.setString(3, row.getEndpoint());
+                ps.setString(4, row.getMethod());
+                ps.setString(5, row.getBodyHash());
+                ps.setInt(6, row.getStatusCode());
+                ps.setInt(7, row.getDelayMs());
+                ps.setInt(8, row.getVersion());
+                ps.setString(9, row.getRequestHeaders());
+                ps.setString(10, row.getQueryParameters());
+                ps.setString(11, row.getRequestBodyPattern());
+                ps.setInt(12, row.getPriority());
+                ps.setBoolean(13, row.getIsActive());
+                ps.setString(14, row.getLatencyProfile());
+                ps.setObject(15, row.getBytesPerSecond(), Types.INTEGER);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    private String idSequence() {
+        String sequence = idSequence;
+        if (sequence == null) {
+            // The IDENTITY column's own sequence, so batch ids never collide with JPA-inserted rows
+            sequence = jdbcTemplate.queryForObject("SELECT pg_get_serial_sequence('mock_endpoints', 'id')", String.class);
+            idSequence = sequence;
+        }
+        return sequence;
+    }
+}
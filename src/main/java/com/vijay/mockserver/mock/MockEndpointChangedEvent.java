@@ -0,0 +1,10 @@
+package com.vijay.mockserver.mock;
+
+/**
+ * Published by {@link MockEndpointService} whenever a mock version is created,
+ * updated or deleted. Listeners receive it after the surrounding transaction
+ * commits.
+ */
+public record MockEndpointChangedEvent(Long userId, String username, String action,
+        String endpoint, String method, Integer version) {
+}
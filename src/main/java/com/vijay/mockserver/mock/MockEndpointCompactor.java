@@ -0,0 +1,185 @@
+package com.vijay.mockserver.mock;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Background upkeep of mock history. Superseded versions stay in
+ * {@code mock_endpoints} for the listing, search and export APIs, but only
+ * the newest {@code app.history.keep-versions} of each endpoint and method
+ * are kept, and none superseded longer ago than {@code app.history.retention}.
+ * Also gives heads to rows that were written without one, and removes
+ * response bodies no mock refers to any more.
+ */
+@Component
+public class MockEndpointCompactor implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(MockEndpointCompactor.class);
+
+    private static final int DELETE_CHUNK = 1000;
+
+    private static final String EXPIRED = "SELECT v.id, v.user_id FROM (SELECT id, user_id, superseded_at, "
+            + "ROW_NUMBER() OVER (PARTITION BY user_id, method, endpoint ORDER BY id DESC) AS rn FROM mock_endpoints) v "
+            + "WHERE v.superseded_at IS NOT NULL AND (v.rn > ? OR v.superseded_at < ?) "
+            + "AND NOT EXISTS (SELECT 1 FROM mock_endpoint_heads h WHERE h.mock_endpoint_id = v.id)";
+
+    private final MockEndpointHeads heads;
+    private final ResponseBodyStore bodies;
+    private final MockRouteTable routeTable;
+    private final MockSearchIndex searchIndex;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retention;
+    private final int keepVersions;
+    private final long intervalMs;
+    private final ScheduledExecutorService scheduler;
+
+    private final Counter removed;
+    private final Timer runs;
+
+    public MockEndpointCompactor(MockEndpointHeads heads, ResponseBodyStore bodies, MockRouteTable routeTable,
+            MockSearchIndex searchIndex, JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedJdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            @Value("${app.history.retention:30d}") Duration retention,
+            @Value("${app.history.keep-versions:10}") int keepVersions,
+            @Value("${app.history.compaction-interval-ms:3600000}") long intervalMs,
+            MeterRegistry registry) {
+        this.heads = heads;
+        this.bodies = bodies;
+        this.routeTable = routeTable;
+        this.searchIndex = searchIndex;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.retention = retention;
+        this.keepVersions = Math.max(1, keepVersions);
+        this.intervalMs = intervalMs;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "mock-history-compactor");
+            t.setDaemon(true);
+            return t;
+        });
+        this.removed = Counter.builder("mock.history.compacted")
+                .description("Superseded mock versions deleted by compaction").register(registry);
+        this.runs = Timer.builder("mock.history.compaction")
+                .description("Time of one history compaction pass").register(registry);
+    }
+
+    /**
+     * Runs once the schema is up to date and before requests are served, so
+     * mocks from before heads existed never miss while the compactor starts.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        backfill();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::run, 0, Math.max(intervalMs, 1000), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    private void run() {
+        try {
+            runs.record(() -> {
+                backfill();
+                compact();
+                bodies.collectGarbage();
+            });
+        } catch (RuntimeException e) {
+            log.warn("Mock history compaction failed", e);
+        }
+    }
+
+    /**
+     * Give heads to rows that have none and reload the users they belong to.
+     */
+    void backfill() {
+        Set<Long> users = transactionTemplate.execute(status -> heads.backfill());
+        if (users != null && !users.isEmpty()) {
+            users.forEach(userId -> {
+                routeTable.invalidateUser(userId);
+                searchIndex.invalidateUser(userId);
+            });
+            log.info("Created live heads for the mocks of {} users", users.size());
+        }
+    }
+
+    /**
+     * Delete expired history in chunks, each in its own short transaction
+     * that also drops the rows' body references.
+     *
+     * @return the number of rows deleted
+     */
+    int compact() {
+        List<Long> ids = new ArrayList<>();
+        Set<Long> users = new HashSet<>();
+        jdbcTemplate.query(EXPIRED, rs -> {
+            ids.add(rs.getLong(1));
+            users.add(rs.getLong(2));
+        }, keepVersions, Timestamp.from(Instant.now().minus(retention)));
+
+        int deleted = 0;
+        for (int from = 0; from < ids.size(); from += DELETE_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + DELETE_CHUNK, ids.size()));
+            Integer count = transactionTemplate.execute(status -> deleteChunk(chunk));
+            deleted += count != null ? count : 0;
+        }
+        if (deleted > 0) {
+            removed.increment(deleted);
+            users.forEach(searchIndex::invalidateUser); // history is searchable; the route table never held it
+            log.info("Compacted {} superseded mock versions of {} users", deleted, users.size());
+        }
+        return deleted;
+    }
+
+    private int deleteChunk(List<Long> chunk) {
+        // Re-checked and locked here in case a row was promoted back to head since it was selected
+        List<Long> ids = new ArrayList<>();
+        List<String> hashes = new ArrayList<>();
+        namedJdbcTemplate.query("SELECT id, body_hash FROM mock_endpoints WHERE id IN (:ids) "
+                + "AND superseded_at IS NOT NULL AND NOT EXISTS "
+                + "(SELECT 1 FROM mock_endpoint_heads h WHERE h.mock_endpoint_id = mock_endpoints.id) FOR UPDATE",
+                new MapSqlParameterSource("ids", chunk), rs -> {
+                    ids.add(rs.getLong(1));
+                    hashes.add(rs.getString(2));
+                });
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        namedJdbcTemplate.update("DELETE FROM mock_endpoints WHERE id IN (:ids)", new MapSqlParameterSource("ids", ids));
+        bodies.release(hashes);
+        return ids.size();
+    }
+}
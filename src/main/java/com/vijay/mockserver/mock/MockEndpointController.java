@@ -47,12 +47,32 @@ public class MockEndpointController {
 
     @GetMapping("/search")
     public PaginationService.PagedResponse<MockEndpointResponse> search(
-            @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size,
-            @RequestParam(defaultValue = "id") String sortBy,
-            @RequestParam(defaultValue = "asc") String sortDirection,
-            @RequestParam String q) {
-        return service.searchForCurrentUser(page, size, sortBy, sortDirection, q);
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "10") int size,
+            @RequestParam(value = "sortBy", defaultValue = "score") String sortBy,
+            @RequestParam(value = "sortDirection", defaultValue = "asc") String sortDirection,
+            @RequestParam("q") String q,
+            @RequestParam(value = "method", required = false) String method,
+            @RequestParam(value = "isActive", required = false) Boolean isActive) {
+        return service.searchForCurrentUser(page, size, sortBy, sortDirection, q, method, isActive);
+    }
+
+    /**
+     * Keyset-paged listing: pass the previous page's {@code nextCursor} to continue.
+     */
+    @GetMapping("/cursor")
+    public PaginationService.CursorPagedResponse<MockEndpointResponse> listByCursor(
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam(value = "sortBy", defaultValue = "id") String sortBy,
+            @RequestParam(value = "sortDirection", defaultValue = "asc") String sortDirection,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "count", defaultValue = "false") boolean count,
+            @RequestParam(value = "endpoint", required = false) String endpoint,
+            @RequestParam(value = "method", required = false) String method,
+            @RequestParam(value = "isActive", required = false) Boolean isActive,
+            @RequestParam(value = "q", required = false) String q) {
+        return service.listForCurrentUserByCursor(size, sortBy, sortDirection, cursor, count,
+                endpoint, method, isActive, q);
     }
 
     @PostMapping
@@ -0,0 +1,84 @@
+package com.vijay.mockserver.mock;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+
+/**
+ * The live version of one mock variant: for each user, method, endpoint and
+ * set of matching rules, the row that serving uses. Older versions stay in
+ * {@code mock_endpoints} as history. Written by {@link MockEndpointHeads}.
+ */
+@Entity
+@Table(name = "mock_endpoint_heads", indexes = {
+    @Index(name = "idx_head_mock_endpoint", columnList = "mock_endpoint_id")
+})
+public class MockEndpointHead {
+
+    @EmbeddedId
+    private Key key;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "mock_endpoint_id", nullable = false)
+    private MockEndpoint mockEndpoint;
+
+    public Key getKey() {
+        return key;
+    }
+
+    public MockEndpoint getMockEndpoint() {
+        return mockEndpoint;
+    }
+
+    @Embeddable
+    public static class Key implements Serializable {
+
+        @Column(name = "user_id", nullable = false)
+        private Long userId;
+
+        @Column(nullable = false, length = 10)
+        private String method;
+
+        @Column(nullable = false, length = 255)
+        private String endpoint;
+
+        @Column(nullable = false, length = 64)
+        private String variant; // see MockEndpointHeads.variantOf
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public String getVariant() {
+            return variant;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key k && Objects.equals(userId, k.userId) && Objects.equals(method, k.method)
+                    && Objects.equals(endpoint, k.endpoint) && Objects.equals(variant, k.variant);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, method, endpoint, variant);
+        }
+    }
+}
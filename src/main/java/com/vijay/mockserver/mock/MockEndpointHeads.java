@@ -0,0 +1,219 @@
+package com.vijay.mockserver.mock;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps {@code mock_endpoint_heads} pointing at the newest row of every mock
+ * variant. Every write runs in the caller's transaction, so a new version and
+ * its head become visible together. A replaced row is stamped with
+ * {@code superseded_at} and from then on is history, removed later by
+ * {@link MockEndpointCompactor}.
+ */
+@Component
+public class MockEndpointHeads {
+
+    static final String DEFAULT_VARIANT = "default";
+
+    private static final int IN_CHUNK = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public MockEndpointHeads(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedJdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+    }
+
+    /**
+     * Identity of a row's matching rules. Rows of one endpoint and method
+     * with different rules are alternatives that all serve; rows with the
+     * same rules are versions of one another and only the newest serves.
+     */
+    static String variantOf(MockEndpoint row) {
+        if (isBlank(row.getRequestHeaders()) && isBlank(row.getQueryParameters()) && isBlank(row.getRequestBodyPattern())) {
+            return DEFAULT_VARIANT;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String rules : new String[] { row.getRequestHeaders(), row.getQueryParameters(), row.getRequestBodyPattern() }) {
+                digest.update((isBlank(rules) ? "" : rules.strip()).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Make each of the given new rows of a user the head of its variant unless
+     * a newer row already is, and mark whatever they replace as superseded.
+     * The rows must already be inserted.
+     */
+    public void advance(Long userId, Collection<MockEndpoint> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Map<HeadKey, Long> newest = new LinkedHashMap<>();
+        List<Long> superseded = new ArrayList<>();
+        for (MockEndpoint row : rows) {
+            HeadKey key = new HeadKey(row.getMethod(), row.getEndpoint(), variantOf(row));
+            Long previous = newest.put(key, row.getId());
+            if (previous != null) {
+                superseded.add(Math.min(previous, row.getId())); // two versions in one batch
+                newest.put(key, Math.max(previous, row.getId()));
+            }
+        }
+        Map<HeadKey, Long> current = currentHeads(userId, newest.keySet());
+
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        newest.forEach((key, id) -> {
+            Long head = current.get(key);
+            if (head == null) {
+                inserts.add(new Object[] { userId, key.method(), key.endpoint(), key.variant(), id });
+            } else if (head < id) {
+                updates.add(new Object[] { id, userId, key.method(), key.endpoint(), key.variant(), id });
+                superseded.add(head);
+            } else {
+                superseded.add(id); // an older row than the head; history from the start
+            }
+        });
+        if (!updates.isEmpty()) {
+            // Guarded so that a concurrent newer version is never replaced by an older one
+            jdbcTemplate.batchUpdate("UPDATE mock_endpoint_heads SET mock_endpoint_id = ? WHERE user_id = ? "
+                    + "AND method = ? AND endpoint = ? AND variant = ? AND mock_endpoint_id < ?", updates);
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO mock_endpoint_heads (user_id, method, endpoint, variant, "
+                    + "mock_endpoint_id) VALUES (?, ?, ?, ?, ?)", inserts);
+        }
+        markSuperseded(superseded, Instant.now());
+    }
+
+    /**
+     * Take {@code row} out of serving without a replacement, e.g. because a new
+     * version of it moved to another endpoint. No-op unless it is a head.
+     */
+    public boolean retire(MockEndpoint row) {
+        int removed = jdbcTemplate.update("DELETE FROM mock_endpoint_heads WHERE mock_endpoint_id = ?", row.getId());
+        if (removed > 0) {
+            markSuperseded(List.of(row.getId()), Instant.now());
+        }
+        return removed > 0;
+    }
+
+    /**
+     * Release {@code row} before it is deleted. If it was a head, the newest
+     * remaining version of its variant is promoted back to serving.
+     */
+    public void remove(MockEndpoint row) {
+        if (!retire(row)) {
+            return;
+        }
+        String variant = variantOf(row);
+        Long userId = row.getUser().getId();
+        List<Long> candidates = new ArrayList<>();
+        jdbcTemplate.query("SELECT id, request_headers, query_parameters, request_body_pattern FROM mock_endpoints "
+                + "WHERE user_id = ? AND method = ? AND endpoint = ? AND id <> ? ORDER BY id DESC",
+                rs -> {
+                    MockEndpoint other = new MockEndpoint();
+                    other.setRequestHeaders(rs.getString(2));
+                    other.setQueryParameters(rs.getString(3));
+                    other.setRequestBodyPattern(rs.getString(4));
+                    if (candidates.isEmpty() && variant.equals(variantOf(other))) {
+                        candidates.add(rs.getLong(1));
+                    }
+                }, userId, row.getMethod(), row.getEndpoint(), row.getId());
+        if (!candidates.isEmpty()) {
+            Long promoted = candidates.get(0);
+            jdbcTemplate.update("INSERT INTO mock_endpoint_heads (user_id, method, endpoint, variant, mock_endpoint_id) "
+                    + "VALUES (?, ?, ?, ?, ?)", userId, row.getMethod(), row.getEndpoint(), variant, promoted);
+            jdbcTemplate.update("UPDATE mock_endpoints SET superseded_at = NULL WHERE id = ?", promoted);
+        }
+    }
+
+    /**
+     * Give heads to rows written without them: data from before heads
+     * existed, or rows inserted directly such as the demo seed.
+     *
+     * @return the users whose heads changed
+     */
+    public Set<Long> backfill() {
+        Map<Long, List<MockEndpoint>> byUser = new HashMap<>();
+        jdbcTemplate.query("SELECT m.id, m.user_id, m.method, m.endpoint, m.request_headers, m.query_parameters, "
+                + "m.request_body_pattern FROM mock_endpoints m WHERE m.superseded_at IS NULL AND NOT EXISTS "
+                + "(SELECT 1 FROM mock_endpoint_heads h WHERE h.mock_endpoint_id = m.id)",
+                rs -> {
+                    MockEndpoint row = new MockEndpoint();
+                    row.setId(rs.getLong(1));
+                    row.setMethod(rs.getString(3));
+                    row.setEndpoint(rs.getString(4));
+                    row.setRequestHeaders(rs.getString(5));
+                    row.setQueryParameters(rs.getString(6));
+                    row.setRequestBodyPattern(rs.getString(7));
+                    byUser.computeIfAbsent(rs.getLong(2), u -> new ArrayList<>()).add(row);
+                });
+        byUser.forEach(this::advance);
+        return byUser.keySet();
+    }
+
+    /**
+     * Drop every head, ahead of deleting all mocks.
+     */
+    public void deleteAll() {
+        jdbcTemplate.update("DELETE FROM mock_endpoint_heads");
+    }
+
+    private Map<HeadKey, Long> currentHeads(Long userId, Set<HeadKey> keys) {
+        Map<HeadKey, Long> heads = new HashMap<>();
+        List<String> endpoints = new ArrayList<>(new TreeSet<>(keys.stream().map(HeadKey::endpoint).toList()));
+        for (int from = 0; from < endpoints.size(); from += IN_CHUNK) {
+            MapSqlParameterSource params = new MapSqlParameterSource("userId", userId)
+                    .addValue("endpoints", endpoints.subList(from, Math.min(from + IN_CHUNK, endpoints.size())));
+            namedJdbcTemplate.query("SELECT method, endpoint, variant, mock_endpoint_id FROM mock_endpoint_heads "
+                    + "WHERE user_id = :userId AND endpoint IN (:endpoints)", params,
+                    rs -> {
+                        HeadKey key = new HeadKey(rs.getString(1), rs.getString(2), rs.getString(3));
+                        if (keys.contains(key)) {
+                            heads.put(key, rs.getLong(4));
+                        }
+                    });
+        }
+        return heads;
+    }
+
+    private void markSuperseded(List<Long> ids, Instant at) {
+        for (int from = 0; from < ids.size(); from += IN_CHUNK) {
+            MapSqlParameterSource params = new MapSqlParameterSource("at", Timestamp.from(at))
+                    .addValue("ids", ids.subList(from, Math.min(from + IN_CHUNK, ids.size())));
+            namedJdbcTemplate.update("UPDATE mock_endpoints SET superseded_at = :at WHERE id IN (:ids) "
+                    + "AND superseded_at IS NULL", params);
+        }
+    }
+
+    private static boolean isBlank(String s) {
+        return s == null || s.isBlank();
+    }
+
+    private record HeadKey(String method, String endpoint, String variant) {
+    }
+}
@@ -0,0 +1,158 @@
+package com.vijay.mockserver.mock;
+
+import java.util.Comparator;
+import java.util.function.Function;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.vijay.mockserver.common.InvalidCursorException;
+import com.vijay.mockserver.common.PaginationService;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+
+/**
+ * Seek predicates for keyset pages of mocks. Rows are ordered by the sort
+ * key and then by id, and the next page starts strictly after the last row's
+ * (key, id), so each page is an index range scan of {@code size + 1} rows
+ * however deep it is. Searched pages apply the same order and seek to
+ * {@link MockSearchIndex} hits instead.
+ */
+final class MockEndpointKeyset {
+
+    /**
+     * Columns a keyset page may be sorted by; all are non-null.
+     */
+    enum SortKey {
+        ID("id", MockEndpoint::getId, MockSearchIndex.Hit::id, Long::valueOf),
+        ENDPOINT("endpoint", MockEndpoint::getEndpoint, MockSearchIndex.Hit::endpoint, v -> v),
+        METHOD("method", MockEndpoint::getMethod, MockSearchIndex.Hit::method, v -> v),
+        VERSION("version", MockEndpoint::getVersion, MockSearchIndex.Hit::version, Integer::valueOf),
+        PRIORITY("priority", MockEndpoint::getPriority, MockSearchIndex.Hit::priority, Integer::valueOf),
+        STATUS_CODE("statusCode", MockEndpoint::getStatusCode, MockSearchIndex.Hit::statusCode, Integer::valueOf);
+
+        final String property;
+        private final Function<MockEndpoint, ? extends Comparable<?>> getter;
+        private final Function<MockSearchIndex.Hit, ? extends Comparable<?>> hitGetter;
+        private final Function<String, ? extends Comparable<?>> parser;
+
+        SortKey(String property, Function<MockEndpoint, ? extends Comparable<?>> getter,
+                Function<MockSearchIndex.Hit, ? extends Comparable<?>> hitGetter,
+                Function<String, ? extends Comparable<?>> parser) {
+            this.property = property;
+            this.getter = getter;
+            this.hitGetter = hitGetter;
+            this.parser = parser;
+        }
+
+        static SortKey of(String property) {
+            for (SortKey key : values()) {
+                if (key.property.equals(property)) {
+                    return key;
+                }
+            }
+            throw new InvalidCursorException("Cannot page by '" + property + "'");
+        }
+
+        String valueOf(MockEndpoint row) {
+            return String.valueOf(getter.apply(row));
+        }
+
+        @SuppressWarnings("unchecked")
+        Comparable<Object> valueOf(MockSearchIndex.Hit hit) {
+            return (Comparable<Object>) hitGetter.apply(hit);
+        }
+
+        Comparable<?> parse(String value) {
+            try {
+                return parser.apply(value);
+            } catch (NumberFormatException e) {
+                throw new InvalidCursorException("Malformed cursor");
+            }
+        }
+    }
+
+    private MockEndpointKeyset() {
+    }
+
+    static Sort sort(SortKey key, Sort.Direction direction) {
+        return key == SortKey.ID ? Sort.by(direction, "id") : Sort.by(direction, key.property, "id");
+    }
+
+    static PaginationService.Cursor cursorAfter(MockEndpoint last, SortKey key, Sort.Direction direction) {
+        return new PaginationService.Cursor(key.property, direction, key.valueOf(last), last.getId());
+    }
+
+    static PaginationService.Cursor cursorAfter(MockSearchIndex.Hit last, SortKey key, Sort.Direction direction) {
+        return new PaginationService.Cursor(key.property, direction, String.valueOf(key.valueOf(last)), last.id());
+    }
+
+    /**
+     * Search hits in {@code (key, id)} order, the order of {@link #sort}.
+     */
+    static Comparator<MockSearchIndex.Hit> hitOrder(SortKey key, Sort.Direction direction) {
+        Comparator<MockSearchIndex.Hit> order = Comparator.comparing(key::valueOf);
+        order = order.thenComparingLong(MockSearchIndex.Hit::id);
+        return direction.isAscending() ? order : order.reversed();
+    }
+
+    /**
+     * Search hits strictly after the cursor, the in-memory twin of {@link #after}.
+     */
+    static java.util.function.Predicate<MockSearchIndex.Hit> hitsAfter(PaginationService.Cursor cursor, SortKey key) {
+        @SuppressWarnings("unchecked")
+        Comparable<Object> value = (Comparable<Object>) key.parse(cursor.lastValue());
+        int sign = cursor.direction().isAscending() ? 1 : -1;
+        return hit -> {
+            int c = key.valueOf(hit).compareTo(value);
+            return sign * (c != 0 ? c : Long.compare(hit.id(), cursor.lastId())) > 0;
+        };
+    }
+
+    static Specification<MockEndpoint> ownedBy(Long userId) {
+        return (root, query, cb) -> cb.equal(root.get("user").get("id"), userId);
+    }
+
+    /**
+     * Same filters as the offset-paged {@code /filtered} listing; null arguments are ignored.
+     */
+    static Specification<MockEndpoint> filteredBy(String endpoint, String method, Boolean isActive) {
+        return (root, query, cb) -> {
+            Predicate all = cb.conjunction();
+            if (endpoint != null) {
+                all = cb.and(all, cb.like(root.get("endpoint"), "%" + endpoint + "%"));
+            }
+            if (method != null) {
+                all = cb.and(all, cb.equal(root.get("method"), method));
+            }
+            if (isActive != null) {
+                all = cb.and(all, cb.equal(root.get("isActive"), isActive));
+            }
+            return all;
+        };
+    }
+
+    /**
+     * Rows strictly after the cursor in {@code (key, id)} order.
+     */
+    static Specification<MockEndpoint> after(PaginationService.Cursor cursor, SortKey key) {
+        boolean ascending = cursor.direction().isAscending();
+        return (root, query, cb) -> {
+            Predicate idAfter = beyond(cb, root.get("id"), cursor.lastId(), ascending);
+            if (key == SortKey.ID) {
+                return idAfter;
+            }
+            Expression<Comparable<Object>> column = root.get(key.property);
+            @SuppressWarnings("unchecked")
+            Comparable<Object> value = (Comparable<Object>) key.parse(cursor.lastValue());
+            return cb.or(beyond(cb, column, value, ascending), cb.and(cb.equal(column, value), idAfter));
+        };
+    }
+
+    private static <C extends Comparable<? super C>> Predicate beyond(CriteriaBuilder cb,
+            Expression<? extends C> column, C value, boolean ascending) {
+        return ascending ? cb.greaterThan(column, value) : cb.lessThan(column, value);
+    }
+}
@@ -1,16 +1,25 @@
 package com.vijay.mockserver.mock;
 
 import com.vijay.mockserver.user.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface MockEndpointRepository extends JpaRepository<MockEndpoint, Long> {
+public interface MockEndpointRepository extends JpaRepository<MockEndpoint, Long>, JpaSpecificationExecutor<MockEndpoint> {
+
+    int EXPORT_FETCH_SIZE = 500;
 
     List<MockEndpoint> findByUser(User user);
 
@@ -20,6 +29,12 @@ public interface MockEndpointRepository extends JpaRepository<MockEndpoint, Long
 
     List<MockEndpoint> findByUserAndEndpointAndMethodOrderByPriorityDesc(User user, String endpoint, String method);
 
+    @EntityGraph(attributePaths = "body")
+    List<MockEndpoint> findByUserId(Long userId);
+
+    @EntityGraph(attributePaths = "body")
+    List<MockEndpoint> findByUserIdAndEndpointAndMethod(Long userId, String endpoint, String method);
+
     @Query("SELECT m FROM MockEndpoint m WHERE m.user = :user AND "
             + "(:endpoint IS NULL OR m.endpoint LIKE %:endpoint%) AND "
             + "(:method IS NULL OR m.method = :method) AND "
@@ -30,14 +45,61 @@ public interface MockEndpointRepository extends JpaRepository<MockEndpoint, Long
             @Param("isActive") Boolean isActive,
             Pageable pageable);
 
-    @Query("SELECT m FROM MockEndpoint m WHERE m.user = :user AND "
-            + "(:searchTerm IS NULL OR "
-            + "m.endpoint LIKE %:searchTerm% OR "
-            + "m.method LIKE %:searchTerm% OR "
-            + "m.responseJson LIKE %:searchTerm%)")
-    Page<MockEndpoint> findByUserAndSearchTerm(@Param("user") User user,
-            @Param("searchTerm") String searchTerm,
-            Pageable pageable);
+    /**
+     * All mocks of a user with their bodies in id order, read through a
+     * cursor. Must be consumed inside a transaction and closed.
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE))
+    @Query("SELECT m FROM MockEndpoint m LEFT JOIN FETCH m.body WHERE m.user.id = :userId ORDER BY m.id")
+    Stream<MockEndpoint> streamByUserId(@Param("userId") Long userId);
+
+    /**
+     * The given mocks of a user in id order, read through a cursor.
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE))
+    @Query("SELECT m FROM MockEndpoint m LEFT JOIN FETCH m.body WHERE m.user.id = :userId AND m.id IN :ids ORDER BY m.id")
+    Stream<MockEndpoint> streamByUserIdAndIdIn(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+    /**
+     * Row count and highest id per user. Every change adds or removes a row,
+     * so an unchanged stamp means an unchanged set of mocks.
+     */
+    @Query("SELECT m.user.id AS userId, COUNT(m) AS rowCount, MAX(m.id) AS maxId FROM MockEndpoint m "
+            + "WHERE m.user.id IN :userIds GROUP BY m.user.id")
+    List<UserStamp> findStampsByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    interface UserStamp {
+        Long getUserId();
+
+        long getRowCount();
+
+        Long getMaxId();
+    }
+
+    /**
+     * The mocks of a user that serve: the head of each variant, no history.
+     */
+    @Query("SELECT m FROM MockEndpointHead h JOIN h.mockEndpoint m WHERE h.key.userId = :userId")
+    List<MockEndpoint> findLiveByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT m FROM MockEndpointHead h JOIN h.mockEndpoint m WHERE h.key.userId = :userId "
+            + "AND h.key.endpoint = :endpoint AND h.key.method = :method")
+    List<MockEndpoint> findLiveByUserIdAndEndpointAndMethod(@Param("userId") Long userId,
+            @Param("endpoint") String endpoint, @Param("method") String method);
+
+    /**
+     * Like {@link #findStampsByUserIds} over the live rows only. A head can move
+     * back to an older row when its newest version is deleted, so the id sum
+     * is compared as well.
+     */
+    @Query("SELECT h.key.userId AS userId, COUNT(h) AS rowCount, MAX(h.mockEndpoint.id) AS maxId, "
+            + "SUM(h.mockEndpoint.id) AS idSum FROM MockEndpointHead h WHERE h.key.userId IN :userIds "
+            + "GROUP BY h.key.userId")
+    List<LiveStamp> findLiveStampsByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    interface LiveStamp extends UserStamp {
+        Long getIdSum();
+    }
 
     long countByIsActiveTrue();
 
@@ -4,33 +4,66 @@ import com.vijay.mockserver.common.PaginationService;
 import com.vijay.mockserver.mock.dto.MockEndpointRequest;
 import com.vijay.mockserver.mock.dto.MockEndpointResponse;
 import com.vijay.mockserver.user.User;
+import com.vijay.mockserver.user.UserIdentity;
+import com.vijay.mockserver.user.UserIdentityCache;
 import com.vijay.mockserver.user.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import jakarta.servlet.http.HttpServletRequest;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
 public class MockEndpointService {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 500;
+
+    private static final Map<String, Comparator<MockSearchIndex.Hit>> SEARCH_ORDERS = Map.of(
+            "id", Comparator.comparingLong(MockSearchIndex.Hit::id),
+            "endpoint", Comparator.comparing(MockSearchIndex.Hit::endpoint).thenComparingLong(MockSearchIndex.Hit::id),
+            "method", Comparator.comparing(MockSearchIndex.Hit::method).thenComparingLong(MockSearchIndex.Hit::id),
+            "version", Comparator.comparingInt(MockSearchIndex.Hit::version).thenComparingLong(MockSearchIndex.Hit::id),
+            "priority", Comparator.comparingInt(MockSearchIndex.Hit::priority).thenComparingLong(MockSearchIndex.Hit::id));
+
     private final MockEndpointRepository repository;
     private final UserRepository userRepository;
-    private final org.springframework.messaging.simp.SimpMessagingTemplate messagingTemplate;
+    private final ApplicationEventPublisher eventPublisher;
     private final RequestMatchingService requestMatchingService;
+    private final TemplatingService templatingService;
+    private final UserIdentityCache userIdentityCache;
+    private final MockSearchIndex searchIndex;
+    private final MockEndpointHeads heads;
+    private final ResponseBodyStore bodies;
 
     public MockEndpointService(MockEndpointRepository repository, UserRepository userRepository, 
-                             org.springframework.messaging.simp.SimpMessagingTemplate messagingTemplate,
-                             RequestMatchingService requestMatchingService) {
+                             ApplicationEventPublisher eventPublisher,
+                             RequestMatchingService requestMatchingService,
+                             TemplatingService templatingService,
+                             UserIdentityCache userIdentityCache,
+                             MockSearchIndex searchIndex,
+                             MockEndpointHeads heads,
+                             ResponseBodyStore bodies) {
         this.repository = repository;
         this.userRepository = userRepository;
-        this.messagingTemplate = messagingTemplate;
+        this.eventPublisher = eventPublisher;
         this.requestMatchingService = requestMatchingService;
+        this.templatingService = templatingService;
+        this.userIdentityCache = userIdentityCache;
+        this.searchIndex = searchIndex;
+        this.heads = heads;
+        this.bodies = bodies;
     }
 
     public List<MockEndpointResponse> listForCurrentUser() {
@@ -56,41 +89,116 @@ public class MockEndpointService {
         return PaginationService.createPagedResponse(responsePage);
     }
 
+    /**
+     * Page of the caller's mocks matching {@code searchTerm} in the search
+     * index, by relevance unless {@code sortBy} names one of id, endpoint,
+     * method, version or priority.
+     */
     public PaginationService.PagedResponse<MockEndpointResponse> searchForCurrentUser(
-            int page, int size, String sortBy, String sortDirection, String searchTerm) {
-        User user = currentUser();
-        Pageable pageable = PaginationService.createPageable(page, size, sortBy, sortDirection);
-        Page<MockEndpoint> pageResult = repository.findByUserAndSearchTerm(user, searchTerm, pageable);
-        Page<MockEndpointResponse> responsePage = pageResult.map(this::toDto);
-        return PaginationService.createPagedResponse(responsePage);
+            int page, int size, String sortBy, String sortDirection, String searchTerm,
+            String method, Boolean isActive) {
+        MockSearchIndex.Result hits = searchIndex.search(userIdentityCache.current().getId(), searchTerm,
+                method, isActive);
+        Comparator<MockSearchIndex.Hit> order = SEARCH_ORDERS.get(sortBy);
+        if (order != null && !Sort.Direction.fromString(sortDirection).isAscending()) {
+            order = order.reversed();
+        }
+        Pageable pageable = PageRequest.of(page, size);
+        List<Long> ids = hits.page(order, (int) Math.min(pageable.getOffset(), Integer.MAX_VALUE), size).stream()
+                .map(MockSearchIndex.Hit::id).toList();
+        Map<Long, MockEndpoint> rows = new HashMap<>();
+        repository.findAllById(ids).forEach(row -> rows.put(row.getId(), row));
+        List<MockEndpointResponse> content = ids.stream().map(rows::get).filter(Objects::nonNull)
+                .map(this::toDto).toList();
+        return PaginationService.createPagedResponse(new PageImpl<>(content, pageable, hits.total()));
+    }
+
+    /**
+     * A keyset page of the caller's mocks, optionally filtered and searched
+     * like the offset listings. Cost does not grow with page depth; the total
+     * is only counted when {@code count} is set.
+     */
+    public PaginationService.CursorPagedResponse<MockEndpointResponse> listForCurrentUserByCursor(
+            int size, String sortBy, String sortDirection, String cursor, boolean count,
+            String endpoint, String method, Boolean isActive, String searchTerm) {
+        Long userId = userIdentityCache.current().getId();
+        MockEndpointKeyset.SortKey key = MockEndpointKeyset.SortKey.of(sortBy);
+        Sort.Direction direction = Sort.Direction.fromString(sortDirection);
+        int limit = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        if (searchTerm != null && !searchTerm.isBlank()) {
+            return searchByCursor(userId, key, direction, limit, cursor, count, endpoint, method, isActive, searchTerm);
+        }
+
+        Specification<MockEndpoint> filter = Specification.where(MockEndpointKeyset.ownedBy(userId))
+                .and(MockEndpointKeyset.filteredBy(endpoint, method, isActive));
+        Specification<MockEndpoint> page = cursor == null || cursor.isEmpty() ? filter
+                : filter.and(MockEndpointKeyset.after(PaginationService.Cursor.decode(cursor, key.property, direction), key));
+
+        // One extra row tells whether there is a next page without counting
+        List<MockEndpoint> rows = repository.findBy(page,
+                q -> q.sortBy(MockEndpointKeyset.sort(key, direction)).limit(limit + 1).all());
+        PaginationService.Cursor next = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            next = MockEndpointKeyset.cursorAfter(rows.get(limit - 1), key, direction);
+        }
+        Long total = count ? repository.count(filter) : null;
+        return PaginationService.createCursorPagedResponse(rows.stream().map(this::toDto).toList(), limit, next, total);
     }
 
+    /**
+     * Keyset page over {@link MockSearchIndex} hits, so a searched page
+     * matches what {@code /search} finds and never scans response bodies.
+     * The hits are ordered and sought in memory, the same way as rows.
+     */
+    private PaginationService.CursorPagedResponse<MockEndpointResponse> searchByCursor(Long userId,
+            MockEndpointKeyset.SortKey key, Sort.Direction direction, int limit, String cursor, boolean count,
+            String endpoint, String method, Boolean isActive, String searchTerm) {
+        MockSearchIndex.Result hits = searchIndex.search(userId, searchTerm, method, isActive);
+        List<MockSearchIndex.Hit> ordered = hits.page(MockEndpointKeyset.hitOrder(key, direction), 0, hits.total());
+        if (endpoint != null) {
+            ordered = ordered.stream().filter(hit -> hit.endpoint().contains(endpoint)).toList();
+        }
+        Long total = count ? (long) ordered.size() : null;
+        if (cursor != null && !cursor.isEmpty()) {
+            java.util.function.Predicate<MockSearchIndex.Hit> after = MockEndpointKeyset.hitsAfter(
+                    PaginationService.Cursor.decode(cursor, key.property, direction), key);
+            ordered = ordered.stream().filter(after).toList();
+        }
+        PaginationService.Cursor next = null;
+        if (ordered.size() > limit) {
+            ordered = ordered.subList(0, limit);
+            next = MockEndpointKeyset.cursorAfter(ordered.get(limit - 1), key, direction);
+        }
+        List<Long> ids = ordered.stream().map(MockSearchIndex.Hit::id).toList();
+        Map<Long, MockEndpoint> rows = new HashMap<>();
+        repository.findAllById(ids).forEach(row -> rows.put(row.getId(), row));
+        List<MockEndpointResponse> content = ids.stream().map(rows::get).filter(Objects::nonNull)
+                .map(this::toDto).toList();
+        return PaginationService.createCursorPagedResponse(content, limit, next, total);
+    }
+
+    @Transactional
     public MockEndpointResponse create(MockEndpointRequest request) {
-        User user = currentUser();
-        MockEndpoint entity = new MockEndpoint();
-        entity.setUser(user);
-        entity.setEndpoint(normalizeEndpoint(request.getEndpoint()));
-        entity.setMethod(request.getMethod().toUpperCase());
-        entity.setResponseJson(request.getResponseJson());
-        entity.setDelayMs(Optional.ofNullable(request.getDelayMs()).orElse(0));
-        entity.setStatusCode(Optional.ofNullable(request.getStatusCode()).orElse(200));
-        entity.setRequestHeaders(request.getRequestHeaders());
-        entity.setQueryParameters(request.getQueryParameters());
-        entity.setRequestBodyPattern(request.getRequestBodyPattern());
-        entity.setPriority(Optional.ofNullable(request.getPriority()).orElse(0));
-        entity.setIsActive(Optional.ofNullable(request.getIsActive()).orElse(true));
+        UserIdentity identity = userIdentityCache.current();
+        User user = userRepository.getReferenceById(identity.getId());
+        MockEndpoint entity = fromRequest(user, request);
         int nextVersion = repository.findTopByUserAndEndpointAndMethodOrderByVersionDesc(user, entity.getEndpoint(), entity.getMethod())
                 .map(MockEndpoint::getVersion)
                 .map(v -> v + 1)
                 .orElse(1);
         entity.setVersion(nextVersion);
+        bodies.store(List.of(entity));
         repository.save(entity);
-        sendUpdateEvent(user.getUsername(), "created", entity);
+        heads.advance(identity.getId(), List.of(entity));
+        publishChange(identity, "created", entity);
         return toDto(entity);
     }
 
+    @Transactional
     public MockEndpointResponse updateAsNewVersion(Long id, MockEndpointRequest request) {
-        User user = currentUser();
+        UserIdentity identity = userIdentityCache.current();
+        User user = userRepository.getReferenceById(identity.getId());
         MockEndpoint base = repository.findById(id)
                 .filter(me -> me.getUser().getId().equals(user.getId()))
                 .orElseThrow();
@@ -108,6 +216,8 @@ public class MockEndpointService {
         entity.setMethod(targetMethod);
         entity.setResponseJson(request.getResponseJson() != null ? request.getResponseJson() : base.getResponseJson());
         entity.setDelayMs(request.getDelayMs() != null ? request.getDelayMs() : base.getDelayMs());
+        entity.setLatencyProfile(request.getLatencyProfile() != null ? request.getLatencyProfile() : base.getLatencyProfile());
+        entity.setBytesPerSecond(request.getBytesPerSecond() != null ? request.getBytesPerSecond() : base.getBytesPerSecond());
         entity.setStatusCode(request.getStatusCode() != null ? request.getStatusCode() : base.getStatusCode());
         entity.setRequestHeaders(request.getRequestHeaders() != null ? request.getRequestHeaders() : base.getRequestHeaders());
         entity.setQueryParameters(request.getQueryParameters() != null ? request.getQueryParameters() : base.getQueryParameters());
@@ -115,8 +225,18 @@ public class MockEndpointService {
         entity.setPriority(request.getPriority() != null ? request.getPriority() : base.getPriority());
         entity.setIsActive(request.getIsActive() != null ? request.getIsActive() : base.getIsActive());
         entity.setVersion(nextVersion);
+        validate(entity);
+        bodies.store(List.of(entity)); // an unchanged body only gains a reference
         repository.save(entity);
-        sendUpdateEvent(user.getUsername(), "updated", entity);
+        heads.advance(identity.getId(), List.of(entity));
+        // The new version replaces its base even when it moved to another endpoint or changed its rules
+        if (!MockEndpointHeads.variantOf(base).equals(MockEndpointHeads.variantOf(entity))
+                || !base.getEndpoint().equals(targetEndpoint) || !base.getMethod().equals(targetMethod)) {
+            if (heads.retire(base)) {
+                publishChange(identity, "updated", base);
+            }
+        }
+        publishChange(identity, "updated", entity);
         return toDto(entity);
     }
 
@@ -124,25 +244,67 @@ public class MockEndpointService {
         return repository.findTopByUserAndEndpointAndMethodOrderByVersionDesc(user, normalizeEndpoint(endpoint), method.toUpperCase());
     }
 
-    public Optional<MockEndpoint> findBestMatchForRequest(User user, String endpoint, String method, HttpServletRequest request) {
-        List<MockEndpoint> candidates = repository.findByUserAndEndpointAndMethodOrderByPriorityDesc(user, normalizeEndpoint(endpoint), method.toUpperCase());
-        return requestMatchingService.findBestMatch(candidates, request);
-    }
-
+    @Transactional
     public void delete(Long id) {
-        User user = currentUser();
+        UserIdentity identity = userIdentityCache.current();
+        User user = userRepository.getReferenceById(identity.getId());
         repository.findById(id).filter(me -> me.getUser().getId().equals(user.getId()))
-                .ifPresent(repository::delete);
-        sendUpdateEvent(user.getUsername(), "deleted", null);
+                .ifPresent(entity -> {
+                    heads.remove(entity);
+                    bodies.release(List.of(entity.getBodyHash()));
+                    repository.delete(entity);
+                    publishChange(identity, "deleted", entity);
+                });
+    }
+
+    /**
+     * Normalized, validated new row for {@code request}, without id or version.
+     *
+     * @throws InvalidMockDefinitionException if the definition would not compile
+     */
+    MockEndpoint fromRequest(User user, MockEndpointRequest request) {
+        if (request.getMethod() == null || request.getMethod().isBlank()) {
+            throw new InvalidMockDefinitionException("method is required");
+        }
+        if (request.getResponseJson() == null || request.getResponseJson().isBlank()) {
+            throw new InvalidMockDefinitionException("responseJson is required");
+        }
+        MockEndpoint entity = new MockEndpoint();
+        entity.setUser(user);
+        entity.setEndpoint(normalizeEndpoint(request.getEndpoint()));
+        entity.setMethod(request.getMethod().toUpperCase());
+        entity.setResponseJson(request.getResponseJson());
+        entity.setDelayMs(Optional.ofNullable(request.getDelayMs()).orElse(0));
+        entity.setLatencyProfile(request.getLatencyProfile());
+        entity.setBytesPerSecond(request.getBytesPerSecond());
+        entity.setStatusCode(Optional.ofNullable(request.getStatusCode()).orElse(200));
+        entity.setRequestHeaders(request.getRequestHeaders());
+        entity.setQueryParameters(request.getQueryParameters());
+        entity.setRequestBodyPattern(request.getRequestBodyPattern());
+        entity.setPriority(Optional.ofNullable(request.getPriority()).orElse(0));
+        entity.setIsActive(Optional.ofNullable(request.getIsActive()).orElse(true));
+        validate(entity);
+        return entity;
     }
 
-    private MockEndpointResponse toDto(MockEndpoint entity) {
+    /**
+     * One change notification for a whole bulk import instead of one per row.
+     */
+    void publishImport() {
+        UserIdentity identity = userIdentityCache.current();
+        eventPublisher.publishEvent(new MockEndpointChangedEvent(identity.getId(), identity.getUsername(), "imported",
+                null, null, null));
+    }
+
+    MockEndpointResponse toDto(MockEndpoint entity) {
         MockEndpointResponse dto = new MockEndpointResponse();
         dto.setId(entity.getId());
         dto.setEndpoint(entity.getEndpoint());
         dto.setMethod(entity.getMethod());
         dto.setResponseJson(entity.getResponseJson());
         dto.setDelayMs(entity.getDelayMs());
+        dto.setLatencyProfile(entity.getLatencyProfile());
+        dto.setBytesPerSecond(entity.getBytesPerSecond());
         dto.setStatusCode(entity.getStatusCode());
         dto.setVersion(entity.getVersion());
         dto.setRequestHeaders(entity.getRequestHeaders());
@@ -153,13 +315,15 @@ public class MockEndpointService {
         return dto;
     }
 
+    /**
+     * Reference to the caller's row for use in queries and as the owner of new
+     * rows; resolved from the identity cache without loading the user.
+     */
     private User currentUser() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String username = auth.getName();
-        return userRepository.findByUsername(username).orElseThrow();
+        return userRepository.getReferenceById(userIdentityCache.current().getId());
     }
 
-    private String normalizeEndpoint(String p) {
+    static String normalizeEndpoint(String p) {
         if (p == null || p.isBlank()) {
             return "/";
         }
@@ -167,21 +331,28 @@ public class MockEndpointService {
         if (normalized.startsWith("/mock/")) {
             normalized = normalized.substring(5);
         }
-        return normalized.replaceAll("//+", "/");
-    }
-
-    private void sendUpdateEvent(String username, String action, MockEndpoint entity) {
-        try {
-            var payload = new java.util.HashMap<String, Object>();
-            payload.put("user", username);
-            payload.put("action", action);
-            if (entity != null) {
-                payload.put("endpoint", entity.getEndpoint());
-                payload.put("method", entity.getMethod());
-                payload.put("version", entity.getVersion());
-            }
-            messagingTemplate.convertAndSend("/topic/mock-updates", payload);
-        } catch (Exception ignored) {
+        // Called per request on the serving path, so skip the regex in the common case
+        return normalized.contains("//") ? normalized.replaceAll("//+", "/") : normalized;
+    }
+
+    /**
+     * Compile everything the serving path will need so a bad definition is
+     * rejected here rather than silently never matching later.
+     */
+    private void validate(MockEndpoint entity) {
+        EndpointPattern.parse(entity.getEndpoint());
+        requestMatchingService.compile(entity.getRequestHeaders(), entity.getQueryParameters(), entity.getRequestBodyPattern());
+        requestMatchingService.compileLatency(entity.getLatencyProfile(), entity.getDelayMs());
+        if (entity.getBytesPerSecond() != null && entity.getBytesPerSecond() < 0) {
+            throw new InvalidMockDefinitionException("bytesPerSecond must not be negative");
         }
+        if (templatingService.compile(entity.getResponseJson()).isStatic()) {
+            templatingService.serializeStatic(entity.getResponseJson());
+        }
+    }
+
+    private void publishChange(UserIdentity user, String action, MockEndpoint entity) {
+        eventPublisher.publishEvent(new MockEndpointChangedEvent(user.getId(), user.getUsername(), action,
+                entity.getEndpoint(), entity.getMethod(), entity.getVersion()));
     }
 }
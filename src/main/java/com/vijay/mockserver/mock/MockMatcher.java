@@ -0,0 +1,101 @@
+package com.vijay.mockserver.mock;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Compiled request-matching rules of one mock version. Built once by
+ * {@link RequestMatchingService#compile} and evaluated on every request without
+ * re-parsing the stored rule JSON.
+ */
+public final class MockMatcher {
+
+    static final MockMatcher ANY = new MockMatcher(new String[0], new ValueMatcher[0],
+            new String[0], new ValueMatcher[0], null, false);
+
+    static final MockMatcher NONE = new MockMatcher(new String[0], new ValueMatcher[0],
+            new String[0], new ValueMatcher[0], null, true);
+
+    private final String[] headerNames;
+    private final ValueMatcher[] headerRules;
+    private final String[] queryNames;
+    private final ValueMatcher[] queryRules;
+    private final BodyMatcher bodyMatcher;
+    private final boolean never;
+
+    MockMatcher(String[] headerNames, ValueMatcher[] headerRules,
+            String[] queryNames, ValueMatcher[] queryRules, BodyMatcher bodyMatcher, boolean never) {
+        this.headerNames = headerNames;
+        this.headerRules = headerRules;
+        this.queryNames = queryNames;
+        this.queryRules = queryRules;
+        this.bodyMatcher = bodyMatcher;
+        this.never = never;
+    }
+
+    /**
+     * Evaluate the cheap header and query rules first; the body is only read
+     * and parsed if those pass and the mock has body rules. The time of each
+     * kind of rule is added to the request; kinds without rules cost no clock read.
+     */
+    public boolean matches(CachedBodyRequest request) {
+        if (never) {
+            return false;
+        }
+        if (headerNames.length > 0) {
+            long start = System.nanoTime();
+            boolean matched = matchesHeaders(request);
+            request.addRuleNanos(ServingMetrics.Stage.HEADERS, System.nanoTime() - start);
+            if (!matched) {
+                return false;
+            }
+        }
+        if (queryNames.length > 0) {
+            long start = System.nanoTime();
+            boolean matched = matchesQueryParameters(request);
+            request.addRuleNanos(ServingMetrics.Stage.QUERY, System.nanoTime() - start);
+            if (!matched) {
+                return false;
+            }
+        }
+        if (bodyMatcher != null) {
+            long start = System.nanoTime();
+            boolean matched = matchesBody(request);
+            request.addRuleNanos(ServingMetrics.Stage.BODY, System.nanoTime() - start);
+            return matched;
+        }
+        return true;
+    }
+
+    boolean matchesHeaders(HttpServletRequest request) {
+        for (int i = 0; i < headerNames.length; i++) {
+            String actual = request.getHeader(headerNames[i]);
+            if (actual == null || !headerRules[i].matches(actual)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean matchesQueryParameters(HttpServletRequest request) {
+        for (int i = 0; i < queryNames.length; i++) {
+            String[] actualValues = request.getParameterValues(queryNames[i]);
+            if (actualValues == null || !anyMatches(queryRules[i], actualValues)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean matchesBody(CachedBodyRequest request) {
+        return bodyMatcher == null || bodyMatcher.matches(request.getCachedBody());
+    }
+
+    private static boolean anyMatches(ValueMatcher rule, String[] values) {
+        for (String value : values) {
+            if (rule.matches(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,146 @@
+package com.vijay.mockserver.mock;
+
+import java.util.function.Supplier;
+
+/**
+ * Immutable, detached snapshot of one active {@link MockEndpoint} version as
+ * held by the {@link MockRouteTable}. Serving reads only these, never the
+ * JPA entity. Holds only what matching needs; the response body is fetched
+ * from the {@link ResponseBodyStore} the first time this route wins.
+ */
+public final class MockRoute {
+
+    private final Long id;
+    private final String endpoint;
+    private final String method;
+    private final String bodyHash;
+    private final int statusCode;
+    private final int delayMs;
+    private final LatencyProfile latency;
+    private final int bytesPerSecond;
+    private final int version;
+    private final String requestHeaders;
+    private final String queryParameters;
+    private final String requestBodyPattern;
+    private final int priority;
+    private final MockMatcher matcher;
+    private final ResponseBodyStore bodies;
+    private final EndpointPattern pattern;
+    private final Supplier<ServingMetrics.RouteMeters> metersSupplier;
+    private volatile ServingMetrics.RouteMeters meters;
+    private volatile ResponseBodyStore.Content content;
+
+    MockRoute(MockEndpoint entity, MockMatcher matcher, LatencyProfile latency, ResponseBodyStore bodies,
+            Supplier<ServingMetrics.RouteMeters> metersSupplier) {
+        this.id = entity.getId();
+        this.endpoint = entity.getEndpoint();
+        this.method = entity.getMethod();
+        this.bodyHash = entity.getBodyHash();
+        this.statusCode = entity.getStatusCode() != null ? entity.getStatusCode() : 200;
+        this.delayMs = entity.getDelayMs() != null ? entity.getDelayMs() : 0;
+        this.latency = latency;
+        this.bytesPerSecond = entity.getBytesPerSecond() != null ? Math.max(0, entity.getBytesPerSecond()) : 0;
+        this.version = entity.getVersion() != null ? entity.getVersion() : 1;
+        this.requestHeaders = entity.getRequestHeaders();
+        this.queryParameters = entity.getQueryParameters();
+        this.requestBodyPattern = entity.getRequestBodyPattern();
+        this.priority = entity.getPriority() != null ? entity.getPriority() : 0;
+        this.matcher = matcher;
+        this.bodies = bodies;
+        this.pattern = EndpointPattern.parseOrLiteral(endpoint);
+        this.metersSupplier = metersSupplier;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getBodyHash() {
+        return bodyHash;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public int getDelayMs() {
+        return delayMs;
+    }
+
+    /**
+     * Delay before this route's next response, drawn from its latency profile.
+     */
+    public long sampleDelayMs() {
+        return latency.sampleMs();
+    }
+
+    /**
+     * Body send rate, 0 for unthrottled.
+     */
+    public int getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String getRequestHeaders() {
+        return requestHeaders;
+    }
+
+    public String getQueryParameters() {
+        return queryParameters;
+    }
+
+    public String getRequestBodyPattern() {
+        return requestBodyPattern;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public MockMatcher getMatcher() {
+        return matcher;
+    }
+
+    /**
+     * The compiled response body, fetched on first use. Its serialized body
+     * must not be modified.
+     */
+    public ResponseBodyStore.Content getContent() {
+        ResponseBodyStore.Content loaded = content;
+        if (loaded == null) {
+            loaded = bodies.content(bodyHash); // racing first uses get the same cached instance
+            content = loaded;
+        }
+        return loaded;
+    }
+
+    /**
+     * Serving meters of this route's user, method and endpoint, registered
+     * on first use so routes that never serve take no meter slot, and again
+     * if they were released while this route was still being served.
+     */
+    ServingMetrics.RouteMeters getMeters() {
+        ServingMetrics.RouteMeters registered = meters;
+        if (registered == null || registered.isReleased()) {
+            registered = metersSupplier.get(); // variants and racing first uses get the same instance
+            meters = registered;
+        }
+        return registered;
+    }
+
+    EndpointPattern getPattern() {
+        return pattern;
+    }
+}
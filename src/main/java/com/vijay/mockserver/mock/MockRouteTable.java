@@ -0,0 +1,272 @@
+package com.vijay.mockserver.mock;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.vijay.mockserver.user.User;
+import com.vijay.mockserver.user.UserRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Resident per-user route table for the /mock/** serving path. A user's routes
+ * are loaded on first use and afterwards kept current from
+ * {@link MockEndpointChangedEvent}s, so the hot path never touches the database.
+ * Only the live head of each variant is loaded; superseded versions never
+ * become candidates.
+ */
+@Component
+public class MockRouteTable {
+
+    private static final MockRoute[] NO_ROUTES = new MockRoute[0];
+
+    static final Comparator<MockRoute> BY_PRIORITY = Comparator
+            .comparingInt(MockRoute::getPriority).reversed()
+            .thenComparing(MockRoute::getId);
+
+    private final MockEndpointRepository repository;
+    private final UserRepository userRepository;
+    private final RequestMatchingService requestMatchingService;
+    private final ResponseBodyStore bodies;
+    private final ServingMetrics servingMetrics;
+    private final Map<String, UserRoutes> byUsername = new ConcurrentHashMap<>();
+    private final Map<Long, UserRoutes> byUserId = new ConcurrentHashMap<>();
+    // Bumped on every change so a load racing with a commit is not cached stale
+    private final AtomicLong modCount = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer userRebuilds;
+    private final Timer routeRebuilds;
+
+    public MockRouteTable(MockEndpointRepository repository, UserRepository userRepository,
+            RequestMatchingService requestMatchingService, ResponseBodyStore bodies, ServingMetrics servingMetrics,
+            MeterRegistry registry) {
+        this.repository = repository;
+        this.userRepository = userRepository;
+        this.requestMatchingService = requestMatchingService;
+        this.bodies = bodies;
+        this.servingMetrics = servingMetrics;
+        this.hits = Counter.builder("mock.routes.lookups").tag("result", "hit")
+                .description("Route table lookups served from memory").register(registry);
+        this.misses = Counter.builder("mock.routes.lookups").tag("result", "miss")
+                .description("Route table lookups that had to load the user from the database").register(registry);
+        this.userRebuilds = Timer.builder("mock.routes.rebuild").tag("scope", "user")
+                .description("Time to load all routes of a user").register(registry);
+        this.routeRebuilds = Timer.builder("mock.routes.rebuild").tag("scope", "route")
+                .description("Time to reload the candidates of a single endpoint/method").register(registry);
+        Gauge.builder("mock.routes.users", byUserId, Map::size)
+                .description("Users currently resident in the route table").register(registry);
+    }
+
+    /**
+     * Routes of the given user, loading them on first use. Empty if the user does not exist.
+     */
+    public Optional<UserRoutes> routesFor(String username) {
+        UserRoutes routes = byUsername.get(username);
+        if (routes != null) {
+            hits.increment();
+            return Optional.of(routes);
+        }
+        misses.increment();
+        return userRepository.findByUsername(username).map(this::load);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMockEndpointChanged(MockEndpointChangedEvent event) {
+        modCount.incrementAndGet();
+        UserRoutes routes = byUserId.get(event.userId());
+        if (routes == null) {
+            return; // not resident, will be loaded fresh on first use
+        }
+        if (event.endpoint() == null || event.method() == null) {
+            invalidateUser(event.userId());
+            return;
+        }
+        long start = System.nanoTime();
+        routes.lock.lock();
+        try {
+            List<MockEndpoint> rows = repository.findLiveByUserIdAndEndpointAndMethod(
+                    event.userId(), event.endpoint(), event.method());
+            MockRoute[] active = toRoutes(routes.username, event.method(), event.endpoint(), rows);
+            routes.replace(event.method(), event.endpoint(), rows, active);
+            if (active.length == 0) {
+                servingMetrics.release(routes.username, event.method(), event.endpoint());
+            }
+        } finally {
+            routes.lock.unlock();
+            routeRebuilds.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Drop a user's routes and their meters; they are reloaded on the next request.
+     */
+    public void invalidateUser(Long userId) {
+        modCount.incrementAndGet();
+        UserRoutes removed = byUserId.remove(userId);
+        if (removed != null) {
+            byUsername.remove(removed.username, removed);
+            servingMetrics.releaseUser(removed.username);
+        }
+    }
+
+    /**
+     * Drop every resident user, e.g. after the demo data was reset.
+     */
+    public void invalidateAll() {
+        modCount.incrementAndGet();
+        byUserId.clear();
+        byUsername.clear();
+        servingMetrics.releaseAll();
+    }
+
+    /**
+     * Compare each resident user with the database and drop the ones whose
+     * live mocks changed without this node hearing about it.
+     *
+     * @return the number of users dropped
+     */
+    public int reconcile() {
+        if (byUserId.isEmpty()) {
+            return 0;
+        }
+        Map<Long, MockEndpointRepository.LiveStamp> stamps = new HashMap<>();
+        for (MockEndpointRepository.LiveStamp stamp : repository.findLiveStampsByUserIds(List.copyOf(byUserId.keySet()))) {
+            stamps.put(stamp.getUserId(), stamp);
+        }
+        int stale = 0;
+        for (UserRoutes routes : byUserId.values()) {
+            MockEndpointRepository.LiveStamp stamp = stamps.get(routes.userId);
+            long rowCount = stamp != null ? stamp.getRowCount() : 0;
+            long maxId = stamp != null && stamp.getMaxId() != null ? stamp.getMaxId() : 0;
+            long idSum = stamp != null && stamp.getIdSum() != null ? stamp.getIdSum() : 0;
+            if (!routes.hasStamp(rowCount, maxId, idSum)) {
+                invalidateUser(routes.userId);
+                stale++;
+            }
+        }
+        return stale;
+    }
+
+    private UserRoutes load(User user) {
+        long stamp = modCount.get();
+        long start = System.nanoTime();
+        UserRoutes routes = new UserRoutes(user.getId(), user.getUsername());
+        Map<String, Map<String, List<MockEndpoint>>> grouped = new HashMap<>();
+        for (MockEndpoint row : repository.findLiveByUserId(user.getId())) {
+            grouped.computeIfAbsent(row.getMethod(), m -> new HashMap<>())
+                    .computeIfAbsent(row.getEndpoint(), e -> new ArrayList<>())
+                    .add(row);
+        }
+        grouped.forEach((method, endpoints) -> endpoints.forEach(
+                (endpoint, rows) -> routes.replace(method, endpoint, rows,
+                        toRoutes(user.getUsername(), method, endpoint, rows))));
+        userRebuilds.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        UserRoutes existing = byUsername.putIfAbsent(user.getUsername(), routes);
+        if (existing != null) {
+            return existing;
+        }
+        byUserId.put(user.getId(), routes);
+        // Checked only once published: a change committing from here on finds the
+        // routes and updates them, one committed while loading is caught here
+        if (modCount.get() != stamp) {
+            byUserId.remove(user.getId(), routes);
+            byUsername.remove(user.getUsername(), routes); // serve this load once but do not keep it
+        }
+        return routes;
+    }
+
+    private MockRoute[] toRoutes(String username, String method, String endpoint, List<MockEndpoint> rows) {
+        List<MockRoute> active = new ArrayList<>(rows.size());
+        for (MockEndpoint row : rows) {
+            if (Boolean.TRUE.equals(row.getIsActive())) {
+                // Body storage and meters are not touched here; a route fetches both once it wins a match
+                active.add(new MockRoute(row, requestMatchingService.compileOrNever(row),
+                        requestMatchingService.compileLatencyOrFixed(row), bodies,
+                        () -> servingMetrics.forRoute(username, method, endpoint)));
+            }
+        }
+        active.sort(BY_PRIORITY);
+        return active.toArray(NO_ROUTES);
+    }
+
+    /**
+     * All active routes of one user, indexed by method and endpoint pattern.
+     * Candidates are kept sorted by descending priority.
+     */
+    public static final class UserRoutes {
+
+        private final Long userId;
+        private final String username;
+        private final Map<String, RouteTrie> byMethod = new ConcurrentHashMap<>();
+        // method + " " + endpoint -> {row count, max id, id sum} of the rows last loaded, for reconciliation
+        private final Map<String, long[]> rowStamps = new ConcurrentHashMap<>();
+        private final ReentrantLock lock = new ReentrantLock();
+
+        UserRoutes(Long userId, String username) {
+            this.userId = userId;
+            this.username = username;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        /**
+         * The most specific route for a normalized path that {@code select}
+         * accepts out of its priority-ordered candidates.
+         */
+        Optional<RouteMatch> match(String method, String path, Function<MockRoute[], Optional<MockRoute>> select) {
+            RouteTrie trie = byMethod.get(method);
+            if (trie == null) {
+                return Optional.empty();
+            }
+            return trie.find(EndpointPattern.split(path), select);
+        }
+
+        void replace(String method, String endpoint, List<MockEndpoint> rows, MockRoute[] routes) {
+            byMethod.computeIfAbsent(method, m -> new RouteTrie()).replace(endpoint, routes);
+            String key = method + " " + endpoint;
+            if (rows.isEmpty()) {
+                rowStamps.remove(key);
+            } else {
+                long maxId = rows.stream().mapToLong(MockEndpoint::getId).max().getAsLong();
+                long idSum = rows.stream().mapToLong(MockEndpoint::getId).sum();
+                rowStamps.put(key, new long[] { rows.size(), maxId, idSum });
+            }
+        }
+
+        boolean hasStamp(long rowCount, long maxId, long idSum) {
+            long count = 0;
+            long max = 0;
+            long sum = 0;
+            for (long[] stamp : rowStamps.values()) {
+                count += stamp[0];
+                max = Math.max(max, stamp[1]);
+                sum += stamp[2];
+            }
+            return count == rowCount && max == maxId && sum == idSum;
+        }
+    }
+}
@@ -0,0 +1,655 @@
+package com.vijay.mockserver.mock;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Per-user inverted index over mock endpoints, methods and response body JSON
+ * keys and values, used by the console search instead of {@code LIKE} scans
+ * of every response body. A user's index is built on first search and then
+ * kept current from {@link MockEndpointChangedEvent}s like the route table;
+ * idle users are evicted.
+ * <p>
+ * Query terms match indexed terms by prefix and all terms must match. Hits
+ * are scored by the field a term was found in (endpoint over method and body
+ * keys over body values), with exact terms counting double, and ranked best
+ * first with ties newest first.
+ */
+@Component
+public class MockSearchIndex {
+
+    // Fields a term can occur in, as bits of a posting
+    private static final int ENDPOINT = 1;
+    private static final int METHOD = 2;
+    private static final int KEY = 4;
+    private static final int VALUE = 8;
+    private static final int ALL_FIELDS = ENDPOINT | METHOD | KEY | VALUE;
+
+    private static final Map<String, Integer> FIELD_NAMES = Map.of(
+            "endpoint", ENDPOINT, "method", METHOD, "key", KEY, "value", VALUE, "body", KEY | VALUE);
+
+    private static final int MAX_TERM_LENGTH = 40;
+    private static final int MAX_TERMS_PER_MOCK = 1000;
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final MockEndpointRepository repository;
+    private final Cache<Long, UserIndex> byUserId;
+    // Bumped on every change so a build racing with a commit is not cached stale
+    private final AtomicLong modCount = new AtomicLong();
+
+    private final Timer queries;
+    private final Timer builds;
+
+    public MockSearchIndex(MockEndpointRepository repository,
+            @Value("${app.search.max-users:1000}") long maxUsers,
+            @Value("${app.search.idle-ttl:30m}") Duration idleTtl,
+            MeterRegistry registry) {
+        this.repository = repository;
+        this.byUserId = CacheBuilder.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterAccess(idleTtl)
+                .build();
+        this.queries = Timer.builder("mock.search.query")
+                .description("Time to evaluate a search against a resident index").register(registry);
+        this.builds = Timer.builder("mock.search.build")
+                .description("Time to index all mocks of a user").register(registry);
+        Gauge.builder("mock.search.users", byUserId, Cache::size)
+                .description("Users with a resident search index").register(registry);
+    }
+
+    /**
+     * Mocks of a user matching every term of {@code query}. A term may be
+     * prefixed with {@code endpoint:}, {@code method:}, {@code key:},
+     * {@code value:} or {@code body:} to only match that field. An empty
+     * query matches every mock.
+     *
+     * @param method only mocks of this HTTP method, if given
+     * @param isActive only active or only inactive mocks, if given
+     */
+    public Result search(Long userId, String query, String method, Boolean isActive) {
+        UserIndex index = indexFor(userId);
+        long start = System.nanoTime();
+        try {
+            return index.search(parse(query), method, isActive);
+        } finally {
+            queries.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMockEndpointChanged(MockEndpointChangedEvent event) {
+        modCount.incrementAndGet();
+        UserIndex index = byUserId.getIfPresent(event.userId());
+        if (index == null) {
+            return; // not resident, will be built fresh on first search
+        }
+        if (event.endpoint() == null || event.method() == null) {
+            invalidateUser(event.userId());
+            return;
+        }
+        boolean sparse;
+        index.lock.lock();
+        try {
+            sparse = index.replace(event.method(), event.endpoint(),
+                    repository.findByUserIdAndEndpointAndMethod(event.userId(), event.endpoint(), event.method()));
+        } finally {
+            index.lock.unlock();
+        }
+        if (sparse) {
+            invalidateUser(event.userId()); // mostly slots of deleted versions; rebuild on next search
+        }
+    }
+
+    public void invalidateUser(Long userId) {
+        modCount.incrementAndGet();
+        byUserId.invalidate(userId);
+    }
+
+    public void invalidateAll() {
+        modCount.incrementAndGet();
+        byUserId.invalidateAll();
+    }
+
+    /**
+     * Drop resident indexes whose user's mocks changed without this node
+     * hearing about it; same row stamps as {@link MockRouteTable#reconcile()}.
+     *
+     * @return the number of users dropped
+     */
+    public int reconcile() {
+        Map<Long, UserIndex> resident = Map.copyOf(byUserId.asMap());
+        if (resident.isEmpty()) {
+            return 0;
+        }
+        Map<Long, MockEndpointRepository.UserStamp> stamps = new HashMap<>();
+        for (MockEndpointRepository.UserStamp stamp : repository.findStampsByUserIds(resident.keySet())) {
+            stamps.put(stamp.getUserId(), stamp);
+        }
+        int stale = 0;
+        for (Map.Entry<Long, UserIndex> entry : resident.entrySet()) {
+            MockEndpointRepository.UserStamp stamp = stamps.get(entry.getKey());
+            long rowCount = stamp != null ? stamp.getRowCount() : 0;
+            long maxId = stamp != null && stamp.getMaxId() != null ? stamp.getMaxId() : 0;
+            if (!entry.getValue().hasStamp(rowCount, maxId)) {
+                invalidateUser(entry.getKey());
+                stale++;
+            }
+        }
+        return stale;
+    }
+
+    private UserIndex indexFor(Long userId) {
+        UserIndex index = byUserId.getIfPresent(userId);
+        if (index != null) {
+            return index;
+        }
+        long stamp = modCount.get();
+        long start = System.nanoTime();
+        index = new UserIndex();
+        index.addAll(repository.findByUserId(userId));
+        builds.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        UserIndex existing = byUserId.asMap().putIfAbsent(userId, index);
+        if (existing != null) {
+            return existing;
+        }
+        // Same publish-then-check order as MockRouteTable.load
+        if (modCount.get() != stamp) {
+            byUserId.asMap().remove(userId, index); // serve this build once but do not keep it
+        }
+        return index;
+    }
+
+    /**
+     * Split a query into required terms, each with the fields it may match.
+     */
+    static List<QueryTerm> parse(String query) {
+        List<QueryTerm> terms = new ArrayList<>();
+        if (query == null) {
+            return terms;
+        }
+        for (String word : query.trim().split("\\s+")) {
+            int fields = ALL_FIELDS;
+            int colon = word.indexOf(':');
+            if (colon > 0) {
+                Integer named = FIELD_NAMES.get(word.substring(0, colon).toLowerCase(Locale.ROOT));
+                if (named != null) {
+                    fields = named;
+                    word = word.substring(colon + 1);
+                }
+            }
+            int f = fields;
+            tokenize(word, t -> terms.add(new QueryTerm(t, f)));
+        }
+        return terms;
+    }
+
+    /**
+     * Lower-cased runs of letters and digits, cut to {@value #MAX_TERM_LENGTH} characters.
+     */
+    static void tokenize(String text, java.util.function.Consumer<String> sink) {
+        if (text == null) {
+            return;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean word = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                sink.accept(text.substring(start, Math.min(i, start + MAX_TERM_LENGTH)).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+    }
+
+    record QueryTerm(String text, int fields) {
+    }
+
+    /**
+     * A matching mock version with what is needed to sort and filter hits
+     * without going back to the database.
+     */
+    public record Hit(long id, String endpoint, String method, int version, int priority, int statusCode,
+            boolean active, double score) {
+    }
+
+    /**
+     * The mocks matching a search. Only the hits of the requested page are
+     * materialized; the rest stay as ordinals and scores.
+     */
+    public static final class Result {
+
+        static final Result EMPTY = new Result(new Doc[0], new int[0], new float[0], 0);
+
+        private final Doc[] docs;
+        private final int[] ordinals;
+        private final float[] scores;
+        private final int total;
+
+        Result(Doc[] docs, int[] ordinals, float[] scores, int total) {
+            this.docs = docs;
+            this.ordinals = ordinals;
+            this.scores = scores;
+            this.total = total;
+        }
+
+        public int total() {
+            return total;
+        }
+
+        /**
+         * Hits {@code offset} to {@code offset + limit} in the given order, or
+         * best first (ties newest first) when {@code order} is null.
+         */
+        public List<Hit> page(Comparator<Hit> order, int offset, int limit) {
+            if (offset >= total || limit <= 0) {
+                return List.of();
+            }
+            int end = (int) Math.min((long) offset + limit, total);
+            if (order != null) {
+                List<Hit> all = new ArrayList<>(total);
+                for (int i = 0; i < total; i++) {
+                    all.add(hit(i));
+                }
+                all.sort(order);
+                return all.subList(offset, end);
+            }
+            // Keep the best `end` positions in a heap whose head is the worst of them
+            Comparator<Integer> byRelevance = (a, b) -> {
+                int c = Float.compare(scores[a], scores[b]);
+                return c != 0 ? c : Long.compare(docs[ordinals[a]].id(), docs[ordinals[b]].id());
+            };
+            PriorityQueue<Integer> best = new PriorityQueue<>(end + 1, byRelevance);
+            for (int i = 0; i < total; i++) {
+                if (best.size() < end) {
+                    best.add(i);
+                } else if (byRelevance.compare(i, best.peek()) > 0) {
+                    best.poll();
+                    best.add(i);
+                }
+            }
+            Hit[] ranked = new Hit[best.size()];
+            for (int i = ranked.length - 1; i >= 0; i--) {
+                ranked[i] = hit(best.poll());
+            }
+            return Arrays.asList(ranked).subList(offset, end);
+        }
+
+        private Hit hit(int i) {
+            Doc doc = docs[ordinals[i]];
+            return new Hit(doc.id(), doc.endpoint(), doc.method(), doc.version(), doc.priority(), doc.statusCode(),
+                    doc.active(), scores[i]);
+        }
+    }
+
+    private record Doc(long id, String endpoint, String method, int version, int priority, int statusCode,
+            boolean active, String[] terms) {
+    }
+
+    /**
+     * Index of one user. Each mock version gets a dense ordinal, kept for as
+     * long as the version exists, so a query scores into flat arrays instead
+     * of merging id lists. Postings and docs are immutable arrays swapped on
+     * write, so searches never lock; writes must hold {@link #lock}.
+     */
+    private static final class UserIndex {
+
+        final ReentrantLock lock = new ReentrantLock();
+        final ConcurrentSkipListMap<String, Postings> postings = new ConcurrentSkipListMap<>();
+        final ConcurrentSkipListMap<Long, Integer> ordinals = new ConcurrentSkipListMap<>();
+        // method + " " + endpoint -> ids of its versions
+        final Map<String, long[]> idsByKey = new ConcurrentHashMap<>();
+        volatile Doc[] docs = new Doc[0];
+        int size;
+
+        void addAll(List<MockEndpoint> rows) {
+            rows = new ArrayList<>(rows);
+            rows.sort(Comparator.comparing(MockEndpoint::getId)); // ordinal order is id order
+            Doc[] built = new Doc[rows.size()];
+            Map<String, List<MockEndpoint>> grouped = new HashMap<>();
+            Map<String, PostingsBuilder> building = new HashMap<>();
+            for (int ordinal = 0; ordinal < rows.size(); ordinal++) {
+                MockEndpoint row = rows.get(ordinal);
+                grouped.computeIfAbsent(MockEndpointBatchWriter.versionKey(row.getMethod(), row.getEndpoint()),
+                        k -> new ArrayList<>()).add(row);
+                Map<String, Integer> terms = terms(row);
+                String[] canonical = new String[terms.size()];
+                int i = 0;
+                for (Map.Entry<String, Integer> term : terms.entrySet()) {
+                    PostingsBuilder builder = building.computeIfAbsent(term.getKey(), PostingsBuilder::new);
+                    builder.add(Postings.entry(ordinal, term.getValue()));
+                    canonical[i++] = builder.term;
+                }
+                built[ordinal] = doc(row, canonical);
+                ordinals.put(row.getId(), ordinal);
+            }
+            building.forEach((term, builder) -> postings.put(term, builder.build()));
+            grouped.forEach((key, group) -> idsByKey.put(key, group.stream().mapToLong(MockEndpoint::getId).toArray()));
+            size = built.length;
+            docs = built;
+        }
+
+        /**
+         * Re-index the versions of one endpoint.
+         *
+         * @return true if most ordinals now belong to deleted versions
+         */
+        boolean replace(String method, String endpoint, List<MockEndpoint> rows) {
+            String key = MockEndpointBatchWriter.versionKey(method, endpoint);
+            long[] old = idsByKey.remove(key);
+            // Searches hold on to the published array, so write into a copy
+            Doc[] current = docs.clone();
+            if (old != null) {
+                for (long id : old) {
+                    Integer ordinal = ordinals.get(id);
+                    if (ordinal != null) {
+                        unindex(current[ordinal], ordinal);
+                        current[ordinal] = null;
+                        if (rows.stream().noneMatch(row -> row.getId() == id)) {
+                            ordinals.remove(id);
+                        }
+                    }
+                }
+            }
+            for (MockEndpoint row : rows) {
+                Integer ordinal = ordinals.get(row.getId());
+                if (ordinal == null) {
+                    if (size == current.length) {
+                        current = Arrays.copyOf(current, Math.max(16, size * 2));
+                    }
+                    ordinal = size++;
+                    ordinals.put(row.getId(), ordinal);
+                }
+                current[ordinal] = index(row, ordinal);
+            }
+            if (!rows.isEmpty()) {
+                idsByKey.put(key, rows.stream().mapToLong(MockEndpoint::getId).toArray());
+            }
+            docs = current;
+            return size > 1024 && ordinals.size() < size / 2;
+        }
+
+        private Doc index(MockEndpoint row, int ordinal) {
+            Map<String, Integer> terms = terms(row);
+            String[] canonical = new String[terms.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> term : terms.entrySet()) {
+                long entry = Postings.entry(ordinal, term.getValue());
+                Postings existing = postings.get(term.getKey());
+                if (existing == null) {
+                    postings.put(term.getKey(), new Postings(new long[] { entry }));
+                    canonical[i++] = term.getKey();
+                } else {
+                    postings.put(term.getKey(), existing.with(entry));
+                    canonical[i++] = postings.ceilingKey(term.getKey());
+                }
+            }
+            return doc(row, canonical);
+        }
+
+        private void unindex(Doc doc, int ordinal) {
+            if (doc == null) {
+                return;
+            }
+            for (String term : doc.terms()) {
+                Postings without = postings.get(term).without(ordinal);
+                if (without == null) {
+                    postings.remove(term);
+                } else {
+                    postings.put(term, without);
+                }
+            }
+        }
+
+        boolean hasStamp(long rowCount, long maxId) {
+            return ordinals.size() == rowCount && (ordinals.isEmpty() ? 0 : ordinals.lastKey()) == maxId;
+        }
+
+        Result search(List<QueryTerm> terms, String method, Boolean isActive) {
+            Doc[] snapshot = docs;
+            int n = snapshot.length;
+            float[] total = null;
+            for (QueryTerm term : terms) {
+                float[] best = match(term, n);
+                if (best == null) {
+                    return Result.EMPTY;
+                }
+                if (total == null) {
+                    total = best;
+                } else {
+                    for (int i = 0; i < n; i++) {
+                        total[i] = total[i] > 0 && best[i] > 0 ? total[i] + best[i] : 0;
+                    }
+                }
+            }
+            int[] matched = new int[n];
+            float[] scores = new float[n];
+            int count = 0;
+            for (int i = 0; i < n; i++) {
+                Doc doc = snapshot[i];
+                if (doc != null && (total == null || total[i] > 0)
+                        && (method == null || method.equalsIgnoreCase(doc.method()))
+                        && (isActive == null || isActive == doc.active())) {
+                    matched[count] = i;
+                    scores[count++] = total == null ? 0 : total[i];
+                }
+            }
+            return new Result(snapshot, matched, scores, count);
+        }
+
+        /**
+         * Best score per ordinal over all indexed terms that start with the
+         * query term in one of its fields, or null if there are none. Every
+         * expansion is visited, so a short prefix costs at most one pass over
+         * the postings and the hit count stays exact.
+         */
+        private float[] match(QueryTerm term, int n) {
+            float[] best = null;
+            for (Map.Entry<String, Postings> candidate
+                    : postings.subMap(term.text(), true, term.text() + Character.MAX_VALUE, false).entrySet()) {
+                int boost = candidate.getKey().length() == term.text().length() ? 2 : 1;
+                for (long entry : candidate.getValue().entries) {
+                    int ordinal = (int) (entry >>> 8);
+                    int posting = (int) (entry & 0xFF);
+                    int fields = Postings.fields(posting) & term.fields();
+                    if (fields == 0 || ordinal >= n) {
+                        continue;
+                    }
+                    if (best == null) {
+                        best = new float[n];
+                    }
+                    float score = (float) (boost * (weight(fields) + 0.1 * Math.log(Postings.occurrences(posting))));
+                    if (score > best[ordinal]) {
+                        best[ordinal] = score;
+                    }
+                }
+            }
+            return best;
+        }
+
+        private static double weight(int fields) {
+            if ((fields & ENDPOINT) != 0) {
+                return 4;
+            }
+            if ((fields & (METHOD | KEY)) != 0) {
+                return 2;
+            }
+            return 1;
+        }
+
+        private static Doc doc(MockEndpoint row, String[] terms) {
+            return new Doc(row.getId(), row.getEndpoint(), row.getMethod(), row.getVersion(), row.getPriority(),
+                    row.getStatusCode(), Boolean.TRUE.equals(row.getIsActive()), terms);
+        }
+
+        /**
+         * Term -> (fields it occurs in, occurrences) for one mock version.
+         */
+        private static Map<String, Integer> terms(MockEndpoint row) {
+            Map<String, Integer> terms = new LinkedHashMap<>();
+            tokenize(row.getEndpoint(), t -> add(terms, t, ENDPOINT));
+            tokenize(row.getMethod(), t -> add(terms, t, METHOD));
+            Map<String, Integer> body = new LinkedHashMap<>();
+            try (JsonParser parser = JSON.createParser(row.getResponseJson())) {
+                JsonToken token;
+                while ((token = parser.nextToken()) != null) {
+                    if (token == JsonToken.FIELD_NAME) {
+                        tokenize(parser.currentName(), t -> add(body, t, KEY));
+                    } else if (token.isScalarValue() && token != JsonToken.VALUE_NULL) {
+                        tokenize(parser.getText(), t -> add(body, t, VALUE));
+                    }
+                }
+            } catch (IOException e) {
+                // Not JSON (plain text or a template); index the raw text as values
+                body.clear();
+                tokenize(row.getResponseJson(), t -> add(body, t, VALUE));
+            }
+            body.forEach((t, posting) -> terms.merge(t, posting, MockSearchIndex::mergePosting));
+            return terms;
+        }
+
+        private static void add(Map<String, Integer> terms, String term, int field) {
+            if (terms.size() < MAX_TERMS_PER_MOCK || terms.containsKey(term)) {
+                terms.merge(term, Postings.posting(field, 1), MockSearchIndex::mergePosting);
+            }
+        }
+    }
+
+    private static Integer mergePosting(Integer a, Integer b) {
+        return Postings.posting(Postings.fields(a) | Postings.fields(b),
+                Postings.occurrences(a) + Postings.occurrences(b));
+    }
+
+    /**
+     * Postings of one term sorted by ordinal. Each entry packs the ordinal
+     * with the fields the term occurs in and a saturating occurrence count,
+     * so a term costs 8 bytes per mock.
+     */
+    private static final class Postings {
+
+        private static final int MAX_OCCURRENCES = 15;
+
+        final long[] entries;
+
+        Postings(long[] entries) {
+            this.entries = entries;
+        }
+
+        static int posting(int fields, int occurrences) {
+            return Math.min(occurrences, MAX_OCCURRENCES) << 4 | fields;
+        }
+
+        static int fields(int posting) {
+            return posting & 0xF;
+        }
+
+        static int occurrences(int posting) {
+            return posting >>> 4;
+        }
+
+        static long entry(int ordinal, int posting) {
+            return (long) ordinal << 8 | posting;
+        }
+
+        Postings with(long entry) {
+            int at = find((int) (entry >>> 8));
+            if (at >= 0) {
+                long[] copy = entries.clone();
+                copy[at] = entry;
+                return new Postings(copy);
+            }
+            int insert = -at - 1;
+            long[] copy = new long[entries.length + 1];
+            System.arraycopy(entries, 0, copy, 0, insert);
+            copy[insert] = entry;
+            System.arraycopy(entries, insert, copy, insert + 1, entries.length - insert);
+            return new Postings(copy);
+        }
+
+        /**
+         * @return the postings without {@code ordinal}, or null if none remain
+         */
+        Postings without(int ordinal) {
+            int at = find(ordinal);
+            if (at < 0) {
+                return this;
+            }
+            if (entries.length == 1) {
+                return null;
+            }
+            long[] copy = new long[entries.length - 1];
+            System.arraycopy(entries, 0, copy, 0, at);
+            System.arraycopy(entries, at + 1, copy, at, entries.length - at - 1);
+            return new Postings(copy);
+        }
+
+        private int find(int ordinal) {
+            int low = 0;
+            int high = entries.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                long midOrdinal = entries[mid] >>> 8;
+                if (midOrdinal < ordinal) {
+                    low = mid + 1;
+                } else if (midOrdinal > ordinal) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+    }
+
+    private static final class PostingsBuilder {
+
+        final String term;
+        long[] entries = new long[4];
+        int size;
+
+        PostingsBuilder(String term) {
+            this.term = term;
+        }
+
+        void add(long entry) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            entries[size++] = entry;
+        }
+
+        Postings build() {
+            // Rows are added in ordinal order, so entries are already sorted
+            return new Postings(Arrays.copyOf(entries, size));
+        }
+    }
+}
@@ -1,15 +1,17 @@
 package com.vijay.mockserver.mock;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.stereotype.Service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
-import jakarta.servlet.http.HttpServletRequest;
-
 @Service
 public class RequestMatchingService {
 
@@ -20,124 +22,110 @@ public class RequestMatchingService {
     }
 
     /**
-     * Find the best matching mock endpoint based on request criteria
+     * Find the best matching mock route based on request criteria. Candidates
+     * are expected in descending priority order, so the first match wins.
      */
-    public Optional<MockEndpoint> findBestMatch(List<MockEndpoint> candidates, HttpServletRequest request) {
-        return candidates.stream()
-                .filter(MockEndpoint::getIsActive)
-                .filter(mock -> matchesHeaders(mock, request))
-                .filter(mock -> matchesQueryParameters(mock, request))
-                .filter(mock -> matchesRequestBody(mock, request))
-                .max((m1, m2) -> Integer.compare(m1.getPriority(), m2.getPriority()));
+    public Optional<MockRoute> findBestMatch(MockRoute[] candidates, CachedBodyRequest request) {
+        for (MockRoute route : candidates) {
+            if (route.getMatcher().matches(request)) {
+                return Optional.of(route);
+            }
+        }
+        return Optional.empty();
     }
 
-    private boolean matchesHeaders(MockEndpoint mock, HttpServletRequest request) {
-        if (mock.getRequestHeaders() == null || mock.getRequestHeaders().trim().isEmpty()) {
-            return true; // No header constraints
+    /**
+     * Compile the stored matching rules of a mock version.
+     *
+     * @throws InvalidMockDefinitionException if any rule JSON or pattern is invalid
+     */
+    public MockMatcher compile(String requestHeaders, String queryParameters, String requestBodyPattern) {
+        List<String> headerNames = new ArrayList<>();
+        List<ValueMatcher> headerRules = new ArrayList<>();
+        compileRules("requestHeaders", requestHeaders, headerNames, headerRules);
+
+        List<String> queryNames = new ArrayList<>();
+        List<ValueMatcher> queryRules = new ArrayList<>();
+        compileRules("queryParameters", queryParameters, queryNames, queryRules);
+
+        BodyMatcher bodyMatcher = null;
+        if (!isBlank(requestBodyPattern)) {
+            bodyMatcher = BodyMatcher.compile(objectMapper.getFactory(), readObject("requestBodyPattern", requestBodyPattern));
         }
 
+        if (headerNames.isEmpty() && queryNames.isEmpty() && bodyMatcher == null) {
+            return MockMatcher.ANY;
+        }
+        return new MockMatcher(headerNames.toArray(new String[0]), headerRules.toArray(new ValueMatcher[0]),
+                queryNames.toArray(new String[0]), queryRules.toArray(new ValueMatcher[0]), bodyMatcher, false);
+    }
+
+    /**
+     * Like {@link #compile} but for rules that are already stored: a definition
+     * that no longer compiles never matches instead of failing the request.
+     */
+    MockMatcher compileOrNever(MockEndpoint entity) {
         try {
-            @SuppressWarnings("unchecked")
-            Map<String, String> expectedHeaders = objectMapper.readValue(
-                    mock.getRequestHeaders(),
-                    Map.class
-            );
-
-            for (Map.Entry<String, String> entry : expectedHeaders.entrySet()) {
-                String headerName = entry.getKey();
-                String expectedValue = entry.getValue();
-                String actualValue = request.getHeader(headerName);
-
-                if (actualValue == null || !matchesPattern(actualValue, expectedValue)) {
-                    return false;
-                }
-            }
-            return true;
-        } catch (Exception e) {
-            return false; // Invalid JSON or other error
+            return compile(entity.getRequestHeaders(), entity.getQueryParameters(), entity.getRequestBodyPattern());
+        } catch (InvalidMockDefinitionException e) {
+            return MockMatcher.NONE;
         }
     }
 
-    private boolean matchesQueryParameters(MockEndpoint mock, HttpServletRequest request) {
-        if (mock.getQueryParameters() == null || mock.getQueryParameters().trim().isEmpty()) {
-            return true; // No query parameter constraints
+    /**
+     * Compile the latency profile of a mock version; without one it waits
+     * its fixed {@code delayMs}.
+     *
+     * @throws InvalidMockDefinitionException if the profile is invalid
+     */
+    public LatencyProfile compileLatency(String latencyProfile, Integer delayMs) {
+        if (isBlank(latencyProfile)) {
+            return LatencyProfile.fixed(delayMs != null ? delayMs : 0);
         }
+        return LatencyProfile.compile(readObject("latencyProfile", latencyProfile));
+    }
 
+    /**
+     * Like {@link #compileLatency} for stored profiles: one that no longer
+     * compiles falls back to the fixed {@code delayMs}.
+     */
+    LatencyProfile compileLatencyOrFixed(MockEndpoint entity) {
         try {
-            @SuppressWarnings("unchecked")
-            Map<String, String> expectedParams = objectMapper.readValue(
-                    mock.getQueryParameters(),
-                    Map.class
-            );
-
-            Map<String, String[]> actualParams = request.getParameterMap();
-
-            for (Map.Entry<String, String> entry : expectedParams.entrySet()) {
-                String paramName = entry.getKey();
-                String expectedValue = entry.getValue();
-                String[] actualValues = actualParams.get(paramName);
-
-                if (actualValues == null || actualValues.length == 0) {
-                    return false;
-                }
-
-                boolean foundMatch = false;
-                for (String actualValue : actualValues) {
-                    if (matchesPattern(actualValue, expectedValue)) {
-                        foundMatch = true;
-                        break;
-                    }
-                }
-                if (!foundMatch) {
-                    return false;
-                }
-            }
-            return true;
-        } catch (Exception e) {
-            return false; // Invalid JSON or other error
+            return compileLatency(entity.getLatencyProfile(), entity.getDelayMs());
+        } catch (InvalidMockDefinitionException e) {
+            return LatencyProfile.fixed(entity.getDelayMs() != null ? entity.getDelayMs() : 0);
         }
     }
 
-    private boolean matchesRequestBody(MockEndpoint mock, HttpServletRequest request) {
-        if (mock.getRequestBodyPattern() == null || mock.getRequestBodyPattern().trim().isEmpty()) {
-            return true; // No body constraints
+    private void compileRules(String field, String json, List<String> names, List<ValueMatcher> rules) {
+        if (isBlank(json)) {
+            return; // No constraints
         }
+        JsonNode node = readObject(field, json);
+        Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> entry = fields.next();
+            if (!entry.getValue().isValueNode() || entry.getValue().isNull()) {
+                throw new InvalidMockDefinitionException(field + "." + entry.getKey() + " must be a string rule");
+            }
+            names.add(entry.getKey());
+            rules.add(ValueMatcher.compile(entry.getValue().asText()));
+        }
+    }
 
-        // For now, we'll implement basic JSON field matching
-        // In a full implementation, you might want to support more complex patterns
+    private JsonNode readObject(String field, String json) {
         try {
-            // Validate that the pattern is valid JSON
-            objectMapper.readValue(mock.getRequestBodyPattern(), Map.class);
-
-            // This is a simplified implementation
-            // In practice, you'd need to read the request body and parse it
-            // For now, we'll just return true if the pattern is valid JSON
-            return true;
-        } catch (Exception e) {
-            return false; // Invalid JSON pattern
+            JsonNode node = objectMapper.readTree(json);
+            if (node == null || !node.isObject()) {
+                throw new InvalidMockDefinitionException(field + " must be a JSON object");
+            }
+            return node;
+        } catch (JsonProcessingException e) {
+            throw new InvalidMockDefinitionException(field + " is not valid JSON: " + e.getOriginalMessage(), e);
         }
     }
 
-    private boolean matchesPattern(String actual, String pattern) {
-        if (pattern.startsWith("regex:")) {
-            // Regex pattern matching
-            String regex = pattern.substring(6);
-            return actual.matches(regex);
-        } else if (pattern.startsWith("contains:")) {
-            // Contains pattern matching
-            String substring = pattern.substring(9);
-            return actual.contains(substring);
-        } else if (pattern.startsWith("startsWith:")) {
-            // Starts with pattern matching
-            String prefix = pattern.substring(11);
-            return actual.startsWith(prefix);
-        } else if (pattern.startsWith("endsWith:")) {
-            // Ends with pattern matching
-            String suffix = pattern.substring(9);
-            return actual.endsWith(suffix);
-        } else {
-            // Exact match
-            return actual.equals(pattern);
-        }
+    private static boolean isBlank(String s) {
+        return s == null || s.trim().isEmpty();
     }
 }
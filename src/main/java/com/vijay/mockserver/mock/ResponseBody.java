@@ -0,0 +1,40 @@
+package com.vijay.mockserver.mock;
+
+import org.hibernate.annotations.BatchSize;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * A response body stored once and shared by every mock version with the same
+ * content. Written and reference-counted by {@link ResponseBodyStore}.
+ */
+@Entity
+@Table(name = "response_bodies")
+@BatchSize(size = 100) // a listing page resolves its bodies in one query
+public class ResponseBody {
+
+    @Id
+    @Column(length = 64)
+    private String hash; // SHA-256 of the content, hex
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String content;
+
+    @Column(name = "ref_count", nullable = false)
+    private long refCount; // mock rows pointing here; 0 means collectable
+
+    public String getHash() {
+        return hash;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public long getRefCount() {
+        return refCount;
+    }
+}
@@ -0,0 +1,242 @@
+package com.vijay.mockserver.mock;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.vijay.mockserver.common.Databases;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+
+/**
+ * Content-addressed storage of response bodies. A body is stored once in
+ * {@code response_bodies} under the SHA-256 of its content, and mock rows
+ * refer to it by that hash, so versions that only change metadata and
+ * repeated imports share one copy. Each body counts the rows referring to
+ * it; bodies no row refers to any more are removed by
+ * {@link #collectGarbage()}.
+ * <p>
+ * Serving fetches a body only once a route has won a match, and keeps it
+ * compiled in a bounded cache. Because a hash always names the same
+ * content, cached bodies never go stale.
+ */
+@Component
+public class ResponseBodyStore implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(ResponseBodyStore.class);
+
+    private static final int MIGRATION_BATCH = 1000;
+
+    private static final String UPSERT = "INSERT INTO response_bodies (hash, content, ref_count) VALUES (?, ?, ?) "
+            + "ON CONFLICT (hash) DO UPDATE SET ref_count = response_bodies.ref_count + EXCLUDED.ref_count";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TemplatingService templatingService;
+    private final boolean postgres;
+    private final LoadingCache<String, Content> compiled;
+
+    private final Counter collected;
+
+    public ResponseBodyStore(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+            TemplatingService templatingService, DataSource dataSource,
+            @Value("${app.bodies.cache-size:10000}") long cacheSize,
+            MeterRegistry registry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.templatingService = templatingService;
+        this.postgres = Databases.isPostgres(dataSource);
+        this.compiled = CacheBuilder.newBuilder()
+                .maximumSize(cacheSize)
+                .recordStats()
+                .build(CacheLoader.from(this::load));
+        GuavaCacheMetrics.monitor(registry, compiled, "bodies");
+        this.collected = Counter.builder("mock.bodies.collected")
+                .description("Response bodies deleted after their last mock row was").register(registry);
+    }
+
+    /**
+     * A response body ready to serve.
+     *
+     * @param body serialized static body, or {@code null} if {@code template} renders per request
+     * @param etag strong ETag of {@code body}, or {@code null}
+     */
+    public record Content(ResponseTemplate template, byte[] body, String etag) {
+    }
+
+    static String hashOf(String content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Store the bodies of new rows, or add a reference to the copy already
+     * stored, and point the rows at them. Runs in the caller's transaction
+     * before the rows are inserted.
+     */
+    public void store(Collection<MockEndpoint> rows) {
+        Map<String, String> contents = new LinkedHashMap<>();
+        Map<String, Integer> references = new LinkedHashMap<>();
+        for (MockEndpoint row : rows) {
+            String content = row.getResponseJson();
+            String hash = hashOf(content);
+            row.setBodyHash(hash);
+            contents.putIfAbsent(hash, content);
+            references.merge(hash, 1, Integer::sum);
+        }
+        if (references.isEmpty()) {
+            return;
+        }
+        if (postgres) {
+            List<Object[]> args = new ArrayList<>(references.size());
+            references.forEach((hash, count) -> args.add(new Object[] { hash, contents.get(hash), count }));
+            jdbcTemplate.batchUpdate(UPSERT, args);
+            return;
+        }
+        references.forEach((hash, count) -> {
+            if (jdbcTemplate.update("UPDATE response_bodies SET ref_count = ref_count + ? WHERE hash = ?",
+                    count, hash) == 0) {
+                jdbcTemplate.update("INSERT INTO response_bodies (hash, content, ref_count) VALUES (?, ?, ?)",
+                        hash, contents.get(hash), count);
+            }
+        });
+    }
+
+    /**
+     * Drop one reference per given hash, for rows being deleted in the
+     * caller's transaction. Null hashes are ignored.
+     */
+    public void release(Collection<String> hashes) {
+        Map<String, Integer> references = new LinkedHashMap<>();
+        for (String hash : hashes) {
+            if (hash != null) {
+                references.merge(hash, 1, Integer::sum);
+            }
+        }
+        if (references.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(references.size());
+        references.forEach((hash, count) -> args.add(new Object[] { count, hash }));
+        jdbcTemplate.batchUpdate("UPDATE response_bodies SET ref_count = ref_count - ? WHERE hash = ?", args);
+    }
+
+    /**
+     * The compiled body with the given hash, loading it on first use.
+     */
+    public Content content(String hash) {
+        if (hash == null) {
+            throw new IllegalStateException("Mock has no stored response body");
+        }
+        return compiled.getUnchecked(hash);
+    }
+
+    /**
+     * Delete bodies without references. The row check also covers counts that
+     * drifted, so a body still in use is never removed.
+     *
+     * @return the number of bodies deleted
+     */
+    public int collectGarbage() {
+        int deleted = jdbcTemplate.update("DELETE FROM response_bodies WHERE ref_count <= 0 AND NOT EXISTS "
+                + "(SELECT 1 FROM mock_endpoints m WHERE m.body_hash = response_bodies.hash)");
+        collected.increment(deleted);
+        return deleted;
+    }
+
+    /**
+     * Drop every body, after all mocks were deleted.
+     */
+    public void deleteAll() {
+        jdbcTemplate.update("DELETE FROM response_bodies");
+    }
+
+    /**
+     * Runs once the schema is up to date and before requests are served.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        moveInlineBodies();
+    }
+
+    /**
+     * Move bodies still stored inline in {@code mock_endpoints.response_json}
+     * (from before this store existed) into {@code response_bodies}, a batch
+     * per transaction, and free the inline copies.
+     */
+    void moveInlineBodies() {
+        try {
+            // The old column is left in place but may no longer be required
+            jdbcTemplate.execute("ALTER TABLE mock_endpoints ALTER COLUMN response_json DROP NOT NULL");
+        } catch (BadSqlGrammarException e) {
+            return; // created after bodies moved out; nothing inline
+        }
+        int moved = 0;
+        while (true) {
+            Integer batch = transactionTemplate.execute(status -> {
+                List<MockEndpoint> rows = jdbcTemplate.query("SELECT id, response_json FROM mock_endpoints "
+                        + "WHERE body_hash IS NULL AND response_json IS NOT NULL ORDER BY id LIMIT " + MIGRATION_BATCH,
+                        (rs, i) -> {
+                            MockEndpoint row = new MockEndpoint();
+                            row.setId(rs.getLong(1));
+                            row.setResponseJson(rs.getString(2));
+                            return row;
+                        });
+                store(rows);
+                jdbcTemplate.batchUpdate("UPDATE mock_endpoints SET body_hash = ?, response_json = NULL WHERE id = ?",
+                        rows.stream().map(row -> new Object[] { row.getBodyHash(), row.getId() }).toList());
+                return rows.size();
+            });
+            if (batch == null || batch == 0) {
+                break;
+            }
+            moved += batch;
+        }
+        if (moved > 0) {
+            log.info("Moved {} inline response bodies to response_bodies", moved);
+        }
+    }
+
+    private Content load(String hash) {
+        String json = jdbcTemplate.queryForObject("SELECT content FROM response_bodies WHERE hash = ?", String.class, hash);
+        ResponseTemplate template = templatingService.compileOrLiteral(json);
+        byte[] body = template.isStatic() ? templatingService.serializeStaticOrRaw(json) : null;
+        return new Content(template, body, body != null ? strongEtag(body) : null);
+    }
+
+    private static String strongEtag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 22) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
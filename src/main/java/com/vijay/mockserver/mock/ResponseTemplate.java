@@ -0,0 +1,377 @@
+package com.vijay.mockserver.mock;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+/**
+ * A response body parsed once into literal segments and helper nodes. Helpers
+ * are {@code random min max}, {@code uuid}, {@code timestamp},
+ * {@code date [pattern]}, {@code randomString length} and the lookups
+ * {@code request.*}, {@code request.body.<path>}, {@code headers.<name>},
+ * {@code query.<name>} and {@code path.<variable>}. Unknown tags are emitted
+ * as written.
+ * <p>
+ * Rendering appends into a per-thread buffer and reads from the request only
+ * what the template references; all body lookups share one streaming pass.
+ */
+public final class ResponseTemplate {
+
+    private static final int MAX_RETAINED_BUFFER = 256 * 1024;
+    private static final char[] ALPHANUMERIC = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789".toCharArray();
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(1024));
+
+    private final Node[] nodes;
+    private final String[][] bodyPaths;
+    private final JsonFactory jsonFactory;
+
+    private ResponseTemplate(Node[] nodes, String[][] bodyPaths, JsonFactory jsonFactory) {
+        this.nodes = nodes;
+        this.bodyPaths = bodyPaths;
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * True if the body contains no helpers, so it renders to the same text every time.
+     */
+    public boolean isStatic() {
+        return nodes.length == 0 || (nodes.length == 1 && nodes[0] instanceof Literal);
+    }
+
+    public String render(CachedBodyRequest request) {
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        RenderState state = new RenderState(request);
+        for (Node node : nodes) {
+            node.render(out, state);
+        }
+        String result = out.toString();
+        if (out.capacity() > MAX_RETAINED_BUFFER) {
+            BUFFER.remove(); // do not pin one huge buffer per thread
+        }
+        return result;
+    }
+
+    // ---- parsing ----
+
+    /**
+     * @throws InvalidMockDefinitionException if a known helper has invalid arguments
+     */
+    static ResponseTemplate parse(String template, JsonFactory jsonFactory) {
+        List<Node> nodes = new ArrayList<>();
+        Map<String, Integer> bodySlots = new HashMap<>();
+        List<String[]> bodyPaths = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < template.length()) {
+            int open = template.indexOf("{{", i);
+            int close = open < 0 ? -1 : template.indexOf("}}", open + 2);
+            if (close < 0) {
+                literal.append(template, i, template.length());
+                break;
+            }
+            Node helper = parseTag(template.substring(open + 2, close).trim(), bodySlots, bodyPaths);
+            if (helper == null) {
+                // Unknown tag: keep "{{" as text and rescan, so nested known tags still render
+                literal.append(template, i, open + 2);
+                i = open + 2;
+                continue;
+            }
+            literal.append(template, i, open);
+            if (literal.length() > 0) {
+                nodes.add(new Literal(literal.toString()));
+                literal.setLength(0);
+            }
+            nodes.add(helper);
+            i = close + 2;
+        }
+        if (literal.length() > 0) {
+            nodes.add(new Literal(literal.toString()));
+        }
+        return new ResponseTemplate(nodes.toArray(new Node[0]), bodyPaths.toArray(new String[0][]), jsonFactory);
+    }
+
+    /**
+     * A template that renders the given text verbatim.
+     */
+    static ResponseTemplate literal(String text, JsonFactory jsonFactory) {
+        return new ResponseTemplate(new Node[] {new Literal(text)}, new String[0][], jsonFactory);
+    }
+
+    private static Node parseTag(String tag, Map<String, Integer> bodySlots, List<String[]> bodyPaths) {
+        String[] parts = tag.split("\\s+", 2);
+        String name = parts[0];
+        String args = parts.length > 1 ? parts[1].trim() : "";
+        switch (name) {
+            case "uuid":
+                return args.isEmpty() ? (out, state) -> out.append(UUID.randomUUID()) : null;
+            case "timestamp":
+                return args.isEmpty() ? (out, state) -> out.append(System.currentTimeMillis()) : null;
+            case "date":
+                return parseDate(tag, args);
+            case "random":
+                return parseRandom(tag, args);
+            case "randomString":
+                return parseRandomString(tag, args);
+            default:
+                break;
+        }
+        if (!args.isEmpty()) {
+            return null;
+        }
+        if (name.startsWith("request.body.")) {
+            String path = name.substring("request.body.".length());
+            Integer slot = bodySlots.get(path);
+            if (slot == null) {
+                slot = bodyPaths.size();
+                bodySlots.put(path, slot);
+                bodyPaths.add(path.split("\\."));
+            }
+            int index = slot;
+            return (out, state) -> {
+                String value = state.bodyValue(index);
+                if (value != null) {
+                    out.append(value);
+                }
+            };
+        }
+        if (name.startsWith("request.")) {
+            return parseRequestField(name.substring("request.".length()));
+        }
+        if (name.startsWith("headers.") && name.length() > "headers.".length()) {
+            String header = name.substring("headers.".length());
+            return (out, state) -> appendEscaped(out, state.request.getHeader(header));
+        }
+        if (name.startsWith("query.") && name.length() > "query.".length()) {
+            String param = name.substring("query.".length());
+            return (out, state) -> appendEscaped(out, state.request.getParameter(param));
+        }
+        if (name.startsWith("path.") && name.length() > "path.".length()) {
+            String variable = name.substring("path.".length());
+            return (out, state) -> appendEscaped(out, state.request.getPathVariable(variable));
+        }
+        return null;
+    }
+
+    private static Node parseRequestField(String field) {
+        switch (field) {
+            case "method":
+                return (out, state) -> out.append(state.request.getMethod());
+            case "uri":
+                return (out, state) -> appendEscaped(out, state.request.getRequestURI());
+            case "path":
+                return (out, state) -> appendEscaped(out, mockPath(state.request.getRequestURI()));
+            case "query":
+                return (out, state) -> appendEscaped(out, state.request.getQueryString());
+            case "remoteAddr":
+                return (out, state) -> appendEscaped(out, state.request.getRemoteAddr());
+            case "userAgent":
+                return (out, state) -> appendEscaped(out, state.request.getHeader("User-Agent"));
+            case "contentType":
+                return (out, state) -> appendEscaped(out, state.request.getContentType());
+            default:
+                return null;
+        }
+    }
+
+    private static Node parseDate(String tag, String args) {
+        if (args.isEmpty()) {
+            return (out, state) -> out.append(Instant.now());
+        }
+        String pattern = unquote(args);
+        try {
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern(pattern).withZone(ZoneId.systemDefault());
+            return (out, state) -> formatter.formatTo(Instant.now(), out);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidMockDefinitionException("Invalid date pattern in {{" + tag + "}}: " + e.getMessage(), e);
+        }
+    }
+
+    private static Node parseRandom(String tag, String args) {
+        String[] bounds = args.split("\\s+");
+        if (bounds.length != 2) {
+            throw new InvalidMockDefinitionException("{{" + tag + "}} expects: random min max");
+        }
+        int min = parseInt(tag, bounds[0]);
+        int max = parseInt(tag, bounds[1]);
+        if (min > max) {
+            throw new InvalidMockDefinitionException("{{" + tag + "}} has min greater than max");
+        }
+        long bound = (long) max + 1;
+        return (out, state) -> out.append(ThreadLocalRandom.current().nextLong(min, bound));
+    }
+
+    private static Node parseRandomString(String tag, String args) {
+        int length = parseInt(tag, args);
+        if (length < 0) {
+            throw new InvalidMockDefinitionException("{{" + tag + "}} has a negative length");
+        }
+        return (out, state) -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int n = 0; n < length; n++) {
+                out.append(ALPHANUMERIC[random.nextInt(ALPHANUMERIC.length)]);
+            }
+        };
+    }
+
+    private static int parseInt(String tag, String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new InvalidMockDefinitionException("{{" + tag + "}} expects integer arguments", e);
+        }
+    }
+
+    private static String unquote(String s) {
+        if (s.length() >= 2 && (s.charAt(0) == '"' || s.charAt(0) == '\'') && s.charAt(s.length() - 1) == s.charAt(0)) {
+            return s.substring(1, s.length() - 1);
+        }
+        return s;
+    }
+
+    private static String mockPath(String uri) {
+        return uri.startsWith("/mock") ? uri.substring(5) : uri;
+    }
+
+    /**
+     * Request-derived values are escaped so they cannot break the surrounding JSON string.
+     */
+    private static void appendEscaped(StringBuilder out, String value) {
+        if (value != null) {
+            JsonStringEncoder.getInstance().quoteAsString(value, out);
+        }
+    }
+
+    // ---- rendering ----
+
+    @FunctionalInterface
+    private interface Node {
+        void render(StringBuilder out, RenderState state);
+    }
+
+    private record Literal(String text) implements Node {
+        @Override
+        public void render(StringBuilder out, RenderState state) {
+            out.append(text);
+        }
+    }
+
+    /**
+     * Per-render lazily computed request data.
+     */
+    private final class RenderState {
+
+        final CachedBodyRequest request;
+        String[] bodyValues;
+
+        RenderState(CachedBodyRequest request) {
+            this.request = request;
+        }
+
+        String bodyValue(int index) {
+            if (bodyValues == null) {
+                bodyValues = extractBodyValues(request.getCachedBody());
+            }
+            return bodyValues[index];
+        }
+    }
+
+    /**
+     * Resolve all referenced body paths in one streaming pass. Scalars yield
+     * their escaped text, objects and arrays their JSON.
+     */
+    private String[] extractBodyValues(byte[] body) {
+        String[] values = new String[bodyPaths.length];
+        if (body.length == 0) {
+            return values;
+        }
+        int remaining = bodyPaths.length;
+        List<String> stack = new ArrayList<>();
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            JsonToken token = parser.nextToken();
+            if (token != JsonToken.START_OBJECT) {
+                return values;
+            }
+            while ((token = parser.nextToken()) != null && remaining > 0) {
+                if (token == JsonToken.END_OBJECT) {
+                    if (stack.isEmpty()) {
+                        break;
+                    }
+                    stack.remove(stack.size() - 1);
+                    continue;
+                }
+                if (token != JsonToken.FIELD_NAME) {
+                    continue;
+                }
+                String field = parser.currentName();
+                int depth = stack.size();
+                JsonToken value = parser.nextToken();
+                String resolved = null;
+                boolean descend = false;
+                for (int p = 0; p < bodyPaths.length; p++) {
+                    String[] path = bodyPaths[p];
+                    if (values[p] != null || depth >= path.length || !path[depth].equals(field) || !startsWith(path, stack)) {
+                        continue;
+                    }
+                    if (depth == path.length - 1) {
+                        if (resolved == null) {
+                            resolved = readValue(parser, value);
+                        }
+                        values[p] = resolved;
+                        remaining--;
+                    } else {
+                        descend = true;
+                    }
+                }
+                if (resolved != null) {
+                    continue; // value consumed; deeper paths under it stay unresolved
+                }
+                if (descend && value == JsonToken.START_OBJECT) {
+                    stack.add(field);
+                } else if (value.isStructStart()) {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            // Not JSON: body lookups render empty
+        }
+        return values;
+    }
+
+    private static boolean startsWith(String[] path, List<String> stack) {
+        for (int i = 0; i < stack.size(); i++) {
+            if (!path[i].equals(stack.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String readValue(JsonParser parser, JsonToken token) throws IOException {
+        if (token.isScalarValue()) {
+            if (token == JsonToken.VALUE_NULL) {
+                return "null";
+            }
+            return new String(JsonStringEncoder.getInstance().quoteAsString(parser.getText()));
+        }
+        StringWriter json = new StringWriter();
+        try (JsonGenerator generator = jsonFactory.createGenerator(json)) {
+            generator.copyCurrentStructure(parser);
+        }
+        return json.toString();
+    }
+}
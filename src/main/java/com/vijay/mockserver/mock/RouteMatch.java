@@ -0,0 +1,9 @@
+package com.vijay.mockserver.mock;
+
+import java.util.Map;
+
+/**
+ * A route chosen for a request, with the values of its {@code {name}} path variables.
+ */
+record RouteMatch(MockRoute route, Map<String, String> pathVariables) {
+}
@@ -0,0 +1,230 @@
+package com.vijay.mockserver.mock;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.springframework.web.util.UriUtils;
+
+/**
+ * Routes of one user and method, keyed by {@link EndpointPattern} segment.
+ * A lookup walks the request path once, preferring at each segment a literal
+ * child over a {@code {name}} child over a {@code *} child over a {@code **}
+ * tail, and backs off to the next alternative when nothing below it accepts
+ * the request. Cost depends on the path length, not on the number of routes.
+ * <p>
+ * Reads are lock-free; writes must be serialized by the caller.
+ */
+final class RouteTrie {
+
+    private static final MockRoute[] NO_ROUTES = new MockRoute[0];
+
+    private final Node root = new Node();
+
+    /**
+     * Replace the routes stored for one endpoint; an empty array removes it.
+     */
+    void replace(String endpoint, MockRoute[] routes) {
+        EndpointPattern pattern = EndpointPattern.parseOrLiteral(endpoint);
+        List<Node> trail = new ArrayList<>(pattern.length() + 1);
+        Node node = root;
+        trail.add(node);
+        boolean tail = false;
+        for (int i = 0; i < pattern.length() && node != null; i++) {
+            if (pattern.kind(i) == EndpointPattern.Kind.TAIL) {
+                tail = true;
+                break;
+            }
+            node = routes.length == 0 ? node.child(pattern, i) : node.childOrCreate(pattern, i);
+            trail.add(node);
+        }
+        if (node == null) {
+            return; // removing an endpoint that was never stored
+        }
+        if (routes.length == 0) {
+            if (tail) {
+                node.tail = Group.without(node.tail, endpoint);
+            } else {
+                node.exact = Group.without(node.exact, endpoint);
+            }
+            prune(pattern, trail);
+        } else if (tail) {
+            node.tail = Group.with(node.tail, endpoint, routes);
+        } else {
+            node.exact = Group.with(node.exact, endpoint, routes);
+        }
+    }
+
+    /**
+     * The most specific route for the path segments that {@code select} accepts.
+     *
+     * @param select picks a route out of priority-ordered candidates, or none
+     */
+    Optional<RouteMatch> find(String[] segments, Function<MockRoute[], Optional<MockRoute>> select) {
+        return Optional.ofNullable(find(root, segments, 0, new String[segments.length], 0, select));
+    }
+
+    private RouteMatch find(Node node, String[] segments, int i, String[] captured, int count,
+            Function<MockRoute[], Optional<MockRoute>> select) {
+        if (i == segments.length) {
+            RouteMatch match = select(node.exact, captured, count, select);
+            return match != null ? match : select(node.tail, captured, count, select);
+        }
+        String segment = segments[i];
+        RouteMatch match;
+        Node child = node.literals.get(segment);
+        if (child != null && (match = find(child, segments, i + 1, captured, count, select)) != null) {
+            return match;
+        }
+        if (!segment.isEmpty()) {
+            child = node.variable;
+            if (child != null) {
+                captured[count] = segment;
+                if ((match = find(child, segments, i + 1, captured, count + 1, select)) != null) {
+                    return match;
+                }
+            }
+            child = node.wildcard;
+            if (child != null && (match = find(child, segments, i + 1, captured, count, select)) != null) {
+                return match;
+            }
+        }
+        return select(node.tail, captured, count, select);
+    }
+
+    private static RouteMatch select(Group group, String[] captured, int count,
+            Function<MockRoute[], Optional<MockRoute>> select) {
+        if (group == null) {
+            return null;
+        }
+        return select.apply(group.routes).map(route -> new RouteMatch(route, variables(route, captured, count))).orElse(null);
+    }
+
+    private static Map<String, String> variables(MockRoute route, String[] captured, int count) {
+        String[] names = route.getPattern().variableNames();
+        if (names.length == 0) {
+            return Map.of();
+        }
+        Map<String, String> variables = new HashMap<>(names.length * 2);
+        for (int k = 0; k < names.length && k < count; k++) {
+            variables.put(names[k], decode(captured[k]));
+        }
+        return variables;
+    }
+
+    private static String decode(String segment) {
+        if (segment.indexOf('%') < 0) {
+            return segment;
+        }
+        try {
+            return UriUtils.decode(segment, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return segment;
+        }
+    }
+
+    private static void prune(EndpointPattern pattern, List<Node> trail) {
+        for (int i = trail.size() - 1; i > 0; i--) {
+            if (!trail.get(i).isEmpty()) {
+                return;
+            }
+            trail.get(i - 1).unlink(pattern, i - 1);
+        }
+    }
+
+    private static final class Node {
+
+        final Map<String, Node> literals = new ConcurrentHashMap<>();
+        volatile Node variable;
+        volatile Node wildcard;
+        volatile Group exact;
+        volatile Group tail;
+
+        Node child(EndpointPattern pattern, int i) {
+            switch (pattern.kind(i)) {
+                case VARIABLE:
+                    return variable;
+                case WILDCARD:
+                    return wildcard;
+                default:
+                    return literals.get(pattern.segment(i));
+            }
+        }
+
+        Node childOrCreate(EndpointPattern pattern, int i) {
+            switch (pattern.kind(i)) {
+                case VARIABLE:
+                    if (variable == null) {
+                        variable = new Node();
+                    }
+                    return variable;
+                case WILDCARD:
+                    if (wildcard == null) {
+                        wildcard = new Node();
+                    }
+                    return wildcard;
+                default:
+                    return literals.computeIfAbsent(pattern.segment(i), s -> new Node());
+            }
+        }
+
+        void unlink(EndpointPattern pattern, int i) {
+            switch (pattern.kind(i)) {
+                case VARIABLE:
+                    variable = null;
+                    break;
+                case WILDCARD:
+                    wildcard = null;
+                    break;
+                default:
+                    literals.remove(pattern.segment(i));
+            }
+        }
+
+        boolean isEmpty() {
+            return exact == null && tail == null && variable == null && wildcard == null && literals.isEmpty();
+        }
+    }
+
+    /**
+     * Routes of all endpoints that end at the same node, such as {@code /users/{id}}
+     * and {@code /users/{userId}}, merged into one priority order. Immutable.
+     */
+    private static final class Group {
+
+        final Map<String, MockRoute[]> byEndpoint;
+        final MockRoute[] routes;
+
+        private Group(Map<String, MockRoute[]> byEndpoint) {
+            this.byEndpoint = byEndpoint;
+            if (byEndpoint.size() == 1) {
+                this.routes = byEndpoint.values().iterator().next();
+            } else {
+                MockRoute[] merged = byEndpoint.values().stream().flatMap(Arrays::stream).toArray(MockRoute[]::new);
+                Arrays.sort(merged, MockRouteTable.BY_PRIORITY);
+                this.routes = merged;
+            }
+        }
+
+        static Group with(Group group, String endpoint, MockRoute[] routes) {
+            Map<String, MockRoute[]> byEndpoint = group != null ? new HashMap<>(group.byEndpoint) : new HashMap<>(2);
+            byEndpoint.put(endpoint, routes);
+            return new Group(byEndpoint);
+        }
+
+        static Group without(Group group, String endpoint) {
+            if (group == null || !group.byEndpoint.containsKey(endpoint)) {
+                return group;
+            }
+            Map<String, MockRoute[]> byEndpoint = new HashMap<>(group.byEndpoint);
+            byEndpoint.remove(endpoint);
+            return byEndpoint.isEmpty() ? null : new Group(byEndpoint);
+        }
+    }
+}
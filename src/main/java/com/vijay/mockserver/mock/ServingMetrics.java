@@ -0,0 +1,192 @@
+package com.vijay.mockserver.mock;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Meters of the /mock/** serving path, tagged by user, method and route
+ * template. A route registers its meters the first time it serves and keeps
+ * them, so later requests only record into meters they already hold: no
+ * lookup, no tags and no allocation. At most {@code app.metrics.max-routes}
+ * routes get their own meters; the rest share one {@code route=_other} set.
+ * Meters of a route are unregistered when it leaves {@link MockRouteTable},
+ * which frees its slot for another route.
+ */
+@Component
+public class ServingMetrics {
+
+    static final String OTHER = "_other";
+    static final String NONE = "_none";
+
+    /**
+     * Steps of serving one request, recorded as {@code mock.serve.stage{stage=...}}.
+     */
+    public enum Stage {
+        /** Resolving the owner of the mocks from the header or the caller */
+        OWNER,
+        /** Finding the candidates for the path, without evaluating their rules */
+        LOOKUP,
+        HEADERS,
+        QUERY,
+        BODY,
+        /** Rendering a templated body; static bodies skip it */
+        RENDER,
+        WRITE;
+
+        final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    private final MeterRegistry registry;
+    private final int maxRoutes;
+    private final Map<RouteKey, RouteMeters> byRoute = new ConcurrentHashMap<>();
+    private final RouteMeters other;
+    private final RouteMeters unmatched;
+    private final Counter overflow;
+
+    public ServingMetrics(MeterRegistry registry, @Value("${app.metrics.max-routes:200}") int maxRoutes) {
+        this.registry = registry;
+        this.maxRoutes = maxRoutes;
+        this.other = new RouteMeters(registry, Tags.of("user", OTHER, "method", OTHER, "route", OTHER));
+        // Requests that found no user or no mock
+        this.unmatched = new RouteMeters(registry, Tags.of("user", NONE, "method", NONE, "route", NONE));
+        this.overflow = Counter.builder("mock.serve.meters.overflow")
+                .description("Routes that fell back to the shared route=_other meters at app.metrics.max-routes")
+                .register(registry);
+        Gauge.builder("mock.serve.meters.routes", byRoute, Map::size)
+                .description("Routes with their own serving meters").register(registry);
+    }
+
+    /**
+     * Meters of one route, registering them on first use. Called once per
+     * built route, not per request.
+     */
+    RouteMeters forRoute(String username, String method, String endpoint) {
+        RouteKey key = new RouteKey(username, method, endpoint);
+        RouteMeters meters = byRoute.get(key);
+        if (meters != null) {
+            return meters;
+        }
+        if (byRoute.size() >= maxRoutes) {
+            overflow.increment();
+            return other;
+        }
+        return byRoute.computeIfAbsent(key,
+                k -> new RouteMeters(registry, Tags.of("user", username, "method", method, "route", endpoint)));
+    }
+
+    /**
+     * Unregister the meters of a route that has no candidates left. Routes
+     * still holding them fetch new ones on their next use.
+     */
+    void release(String username, String method, String endpoint) {
+        RouteMeters meters = byRoute.remove(new RouteKey(username, method, endpoint));
+        if (meters != null) {
+            meters.release(registry);
+        }
+    }
+
+    /**
+     * Unregister the meters of every route of a user dropped from the route table.
+     */
+    void releaseUser(String username) {
+        releaseIf(key -> key.username().equals(username));
+    }
+
+    void releaseAll() {
+        releaseIf(key -> true);
+    }
+
+    private void releaseIf(Predicate<RouteKey> filter) {
+        byRoute.forEach((key, meters) -> {
+            if (filter.test(key) && byRoute.remove(key, meters)) {
+                meters.release(registry);
+            }
+        });
+    }
+
+    RouteMeters unmatched() {
+        return unmatched;
+    }
+
+    private record RouteKey(String username, String method, String endpoint) {
+    }
+
+    /**
+     * Pre-registered meters of one route.
+     */
+    public static final class RouteMeters {
+
+        private final Timer[] stages = new Timer[Stage.values().length];
+        private final Timer processing;
+        private final Timer delay;
+        private final DistributionSummary size;
+        private volatile boolean released;
+
+        RouteMeters(MeterRegistry registry, Tags tags) {
+            for (Stage stage : Stage.values()) {
+                stages[stage.ordinal()] = Timer.builder("mock.serve.stage").tags(tags).tag("stage", stage.tag)
+                        .description("Time spent in one step of serving a mock").register(registry);
+            }
+            this.processing = Timer.builder("mock.serve.processing").tags(tags)
+                    .description("Time spent serving a mock, excluding any injected delay")
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(10_000))
+                    .maximumExpectedValue(Duration.ofSeconds(10))
+                    .register(registry);
+            this.delay = Timer.builder("mock.serve.delay").tags(tags)
+                    .description("Injected delay as actually elapsed before the response was sent")
+                    .register(registry);
+            this.size = DistributionSummary.builder("mock.serve.response.size").tags(tags).baseUnit("bytes")
+                    .description("Response body bytes sent").register(registry);
+        }
+
+        /**
+         * Whether these meters were unregistered and no longer publish.
+         */
+        boolean isReleased() {
+            return released;
+        }
+
+        private void release(MeterRegistry registry) {
+            released = true;
+            List<Meter> meters = new ArrayList<>(List.of(stages));
+            meters.add(processing);
+            meters.add(delay);
+            meters.add(size);
+            meters.forEach(registry::remove);
+        }
+
+        void stage(Stage stage, long nanos) {
+            stages[stage.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        void processing(long nanos) {
+            processing.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        void delay(long nanos) {
+            delay.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        void size(int bytes) {
+            size.record(bytes);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.vijay.mockserver.mock;
+
+import java.io.IOException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Sends response bodies at a limited byte rate, one chunk per tick of the
+ * shared {@link DelayScheduler}. Writes are non-blocking, so between chunks
+ * a throttled response is only a timer entry and a slow connection holds no
+ * thread; a client that reads slower than the rate just gets it slower.
+ */
+@Component
+public class ThrottledBodyWriter {
+
+    private final DelayScheduler scheduler;
+    private final long tickMs;
+    private final AtomicInteger active = new AtomicInteger();
+    private final Counter abandoned;
+
+    public ThrottledBodyWriter(DelayScheduler scheduler, @Value("${app.mock.throttle.tick-ms:50}") long tickMs,
+            MeterRegistry registry) {
+        this.scheduler = scheduler;
+        this.tickMs = Math.max(1, tickMs);
+        Gauge.builder("mock.throttle.active", active, AtomicInteger::get)
+                .description("Throttled mock responses still being sent").register(registry);
+        this.abandoned = Counter.builder("mock.throttle.abandoned")
+                .description("Throttled responses given up on after a client error or timeout").register(registry);
+    }
+
+    /**
+     * Start sending {@code body} at {@code bytesPerSecond} and complete
+     * {@code async} once it is sent. Status and headers must already be set;
+     * the async timeout is extended by the expected transfer time.
+     */
+    void write(AsyncContext async, HttpServletResponse response, byte[] body, int bytesPerSecond)
+            throws IOException {
+        // Each tick sends what the rate allows per tick; below one byte per tick, ticks get longer instead
+        int chunk = (int) Math.max(1, Math.min(body.length, (long) bytesPerSecond * tickMs / 1000));
+        long interval = Math.max(tickMs, chunk * 1000L / bytesPerSecond);
+        async.setTimeout(async.getTimeout() + body.length * 1000L / bytesPerSecond);
+        Transfer transfer = new Transfer(async, response.getOutputStream(), body, chunk, interval);
+        async.addListener(transfer);
+        active.incrementAndGet();
+        transfer.out.setWriteListener(transfer); // the container calls onWritePossible to send the first chunk
+    }
+
+    private final class Transfer implements WriteListener, AsyncListener, Runnable {
+
+        private final AsyncContext async;
+        private final ServletOutputStream out;
+        private final byte[] body;
+        private final int chunk;
+        private final long interval;
+        private int offset;
+        private boolean waiting;
+        private boolean finished;
+        private ScheduledFuture<?> next;
+
+        Transfer(AsyncContext async, ServletOutputStream out, byte[] body, int chunk, long interval) {
+            this.async = async;
+            this.out = out;
+            this.body = body;
+            this.chunk = chunk;
+            this.interval = interval;
+        }
+
+        /**
+         * Called by the container once the connection can take more, and by
+         * {@link #run} on every tick; sends at most one chunk per tick.
+         */
+        @Override
+        public synchronized void onWritePossible() throws IOException {
+            if (finished || waiting || !out.isReady()) {
+                return; // not ready: the container calls again once the connection drains
+            }
+            if (offset < body.length) {
+                int length = Math.min(chunk, body.length - offset);
+                out.write(body, offset, length);
+                offset += length;
+                if (out.isReady()) {
+                    out.flush();
+                }
+                if (offset < body.length) {
+                    waiting = true;
+                    next = scheduler.schedule(this, interval);
+                    return;
+                }
+            }
+            if (out.isReady()) {
+                finish();
+                async.complete();
+            }
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                waiting = false;
+            }
+            try {
+                onWritePossible();
+            } catch (IOException | RuntimeException e) {
+                abandon();
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            abandon();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            abandon();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            abandon();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            finish();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+
+        private synchronized void abandon() {
+            if (finished) {
+                return;
+            }
+            finish();
+            abandoned.increment();
+            try {
+                async.complete();
+            } catch (IllegalStateException e) {
+                // Already completed by the container
+            }
+        }
+
+        private synchronized void finish() {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            active.decrementAndGet();
+            if (next != null) {
+                next.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.vijay.mockserver.mock;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A single compiled value rule: exact match or one of the {@code regex:},
+ * {@code contains:}, {@code startsWith:}, {@code endsWith:} and
+ * {@code range:min..max} prefixes. Regexes are compiled once; the other kinds
+ * are plain String or numeric checks.
+ */
+public final class ValueMatcher {
+
+    private enum Kind {
+        EXACT, REGEX, CONTAINS, STARTS_WITH, ENDS_WITH, RANGE, EXACT_OR_REGEX
+    }
+
+    private static final Pattern REGEX_SYNTAX = Pattern.compile("[.*+?^$|()\\[\\]{}\\\\]");
+
+    private final Kind kind;
+    private final String operand;
+    private final Pattern pattern;
+    private final double min;
+    private final double max;
+
+    private ValueMatcher(Kind kind, String operand, Pattern pattern) {
+        this(kind, operand, pattern, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+
+    private ValueMatcher(Kind kind, String operand, Pattern pattern, double min, double max) {
+        this.kind = kind;
+        this.operand = operand;
+        this.pattern = pattern;
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * Compile a rule as written in a mock definition.
+     *
+     * @throws InvalidMockDefinitionException if a {@code regex:} or {@code range:} rule is malformed
+     */
+    public static ValueMatcher compile(String spec) {
+        if (spec.startsWith("regex:")) {
+            String regex = spec.substring(6);
+            try {
+                return new ValueMatcher(Kind.REGEX, regex, Pattern.compile(regex));
+            } catch (PatternSyntaxException e) {
+                throw new InvalidMockDefinitionException("Invalid regex '" + regex + "': " + e.getDescription(), e);
+            }
+        } else if (spec.startsWith("contains:")) {
+            return new ValueMatcher(Kind.CONTAINS, spec.substring(9), null);
+        } else if (spec.startsWith("startsWith:")) {
+            return new ValueMatcher(Kind.STARTS_WITH, spec.substring(11), null);
+        } else if (spec.startsWith("endsWith:")) {
+            return new ValueMatcher(Kind.ENDS_WITH, spec.substring(9), null);
+        } else if (spec.startsWith("range:")) {
+            return compileRange(spec.substring(6));
+        }
+        return new ValueMatcher(Kind.EXACT, spec, null);
+    }
+
+    /**
+     * Compile a string leaf of a {@code requestBodyPattern}. Body patterns
+     * were stored long before they were enforced, with bare regexes such as
+     * {@code ".+@.+"}; a bare value that reads as a regex therefore matches
+     * either exactly or as a full regex, so those definitions keep matching.
+     *
+     * @throws InvalidMockDefinitionException if a {@code regex:} or {@code range:} rule is malformed
+     */
+    static ValueMatcher compileBodyRule(String spec) {
+        ValueMatcher rule = compile(spec);
+        if (rule.kind != Kind.EXACT || !REGEX_SYNTAX.matcher(spec).find()) {
+            return rule;
+        }
+        try {
+            return new ValueMatcher(Kind.EXACT_OR_REGEX, spec, Pattern.compile(spec));
+        } catch (PatternSyntaxException e) {
+            return rule; // not a regex after all
+        }
+    }
+
+    private static ValueMatcher compileRange(String range) {
+        int sep = range.indexOf("..");
+        if (sep < 0) {
+            throw new InvalidMockDefinitionException("Invalid range '" + range + "', expected min..max");
+        }
+        try {
+            String lower = range.substring(0, sep).trim();
+            String upper = range.substring(sep + 2).trim();
+            double min = lower.isEmpty() ? Double.NEGATIVE_INFINITY : Double.parseDouble(lower);
+            double max = upper.isEmpty() ? Double.POSITIVE_INFINITY : Double.parseDouble(upper);
+            if (min > max) {
+                throw new InvalidMockDefinitionException("Invalid range '" + range + "', min is greater than max");
+            }
+            return new ValueMatcher(Kind.RANGE, range, null, min, max);
+        } catch (NumberFormatException e) {
+            throw new InvalidMockDefinitionException("Invalid range '" + range + "', bounds must be numbers", e);
+        }
+    }
+
+    public boolean matches(String actual) {
+        switch (kind) {
+            case REGEX:
+                return pattern.matcher(actual).matches();
+            case EXACT_OR_REGEX:
+                return actual.equals(operand) || pattern.matcher(actual).matches();
+            case CONTAINS:
+                return actual.contains(operand);
+            case STARTS_WITH:
+                return actual.startsWith(operand);
+            case ENDS_WITH:
+                return actual.endsWith(operand);
+            case RANGE:
+                return inRange(actual);
+            default:
+                return actual.equals(operand);
+        }
+    }
+
+    /**
+     * Numeric check for values that are already numbers, e.g. JSON body tokens.
+     */
+    public boolean matches(double actual) {
+        if (kind == Kind.RANGE) {
+            return actual >= min && actual <= max;
+        }
+        return false;
+    }
+
+    boolean isRange() {
+        return kind == Kind.RANGE;
+    }
+
+    private boolean inRange(String actual) {
+        try {
+            return matches(Double.parseDouble(actual.trim()));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -20,6 +20,11 @@ public class MockEndpointRequest {
     @Max(599)
     private Integer statusCode = 200;
 
+    private String latencyProfile; // JSON delay distribution; replaces delayMs when set
+
+    @Min(0)
+    private Integer bytesPerSecond; // Body send rate; null or 0 sends at full speed
+
     private String requestHeaders; // JSON string for header matching rules
     private String queryParameters; // JSON string for query parameter matching rules
     private String requestBodyPattern; // JSON string for body matching rules
@@ -58,6 +63,22 @@ public class MockEndpointRequest {
         this.delayMs = delayMs;
     }
 
+    public String getLatencyProfile() {
+        return latencyProfile;
+    }
+
+    public void setLatencyProfile(String latencyProfile) {
+        this.latencyProfile = latencyProfile;
+    }
+
+    public Integer getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    public void setBytesPerSecond(Integer bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
     public Integer getStatusCode() {
         return statusCode;
     }
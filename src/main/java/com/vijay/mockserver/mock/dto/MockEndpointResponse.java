@@ -7,6 +7,8 @@ public class MockEndpointResponse {
     private String method;
     private String responseJson;
     private Integer delayMs;
+    private String latencyProfile;
+    private Integer bytesPerSecond;
     private Integer statusCode;
     private Integer version;
     private String requestHeaders;
@@ -55,6 +57,22 @@ public class MockEndpointResponse {
         this.delayMs = delayMs;
     }
 
+    public String getLatencyProfile() {
+        return latencyProfile;
+    }
+
+    public void setLatencyProfile(String latencyProfile) {
+        this.latencyProfile = latencyProfile;
+    }
+
+    public Integer getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    public void setBytesPerSecond(Integer bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
     public Integer getStatusCode() {
         return statusCode;
     }
@@ -0,0 +1,13 @@
+package com.vijay.mockserver.security;
+
+/**
+ * Outcome of a rate limit check.
+ *
+ * @param allowed          whether the request may proceed
+ * @param limit            bucket capacity, in requests per minute
+ * @param remaining        whole tokens left after this request
+ * @param retryAfterMillis time until the next token when denied, otherwise 0
+ * @param resetMillis      time until the bucket is full again
+ */
+public record RateLimitDecision(boolean allowed, long limit, long remaining, long retryAfterMillis, long resetMillis) {
+}
@@ -1,8 +1,8 @@
 package com.vijay.mockserver.security;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.vijay.mockserver.user.User;
-import com.vijay.mockserver.user.UserRepository;
+import com.vijay.mockserver.user.UserIdentity;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -10,27 +10,33 @@ import jakarta.servlet.ServletRequest;
 import jakarta.servlet.ServletResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Component
 public class RateLimitingFilter implements Filter {
 
     private final RateLimitingService rateLimitingService;
-    private final UserRepository userRepository;
     private final ObjectMapper objectMapper;
+    // Addresses allowed to report the client address in X-Forwarded-For
+    private final Set<String> trustedProxies;
 
-    public RateLimitingFilter(RateLimitingService rateLimitingService, UserRepository userRepository, ObjectMapper objectMapper) {
+    public RateLimitingFilter(RateLimitingService rateLimitingService, ObjectMapper objectMapper,
+                              @Value("${app.rate-limit.trusted-proxies:}") String trustedProxies) {
         this.rateLimitingService = rateLimitingService;
-        this.userRepository = userRepository;
         this.objectMapper = objectMapper;
+        this.trustedProxies = Arrays.stream(trustedProxies.split(","))
+                .map(String::trim)
+                .filter(address -> !address.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
     }
 
     @Override
@@ -40,38 +46,36 @@ public class RateLimitingFilter implements Filter {
         HttpServletRequest httpRequest = (HttpServletRequest) request;
         HttpServletResponse httpResponse = (HttpServletResponse) response;
 
-        // Skip rate limiting for certain paths
+        // Skip rate limiting for certain paths, and for error/async re-dispatches already counted
         String path = httpRequest.getRequestURI();
-        if (shouldSkipRateLimiting(path)) {
+        if (httpRequest.getDispatcherType() != DispatcherType.REQUEST || shouldSkipRateLimiting(path)) {
             chain.doFilter(request, response);
             return;
         }
 
-        boolean allowed = false;
-        String clientId = getClientIdentifier(httpRequest);
-
-        // Check user-based rate limiting first
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth != null && auth.isAuthenticated() && !"anonymousUser".equals(auth.getName())) {
-            Optional<User> userOpt = userRepository.findByUsername(auth.getName());
-            if (userOpt.isPresent()) {
-                allowed = rateLimitingService.isAllowed(userOpt.get());
-            }
+        // Authenticated callers are limited by their own quota, everyone else by IP
+        RateLimitDecision decision;
+        Object identity = httpRequest.getAttribute(UserIdentity.REQUEST_ATTRIBUTE);
+        if (identity instanceof UserIdentity user) {
+            decision = rateLimitingService.tryAcquire(user);
+        } else {
+            decision = rateLimitingService.tryAcquire(getClientIdentifier(httpRequest));
         }
 
-        // If user-based rate limiting didn't apply or failed, check IP-based
-        if (!allowed) {
-            allowed = rateLimitingService.isAllowed(clientId);
-        }
+        httpResponse.setHeader("X-RateLimit-Limit", Long.toString(decision.limit()));
+        httpResponse.setHeader("X-RateLimit-Remaining", Long.toString(decision.remaining()));
+        httpResponse.setHeader("X-RateLimit-Reset", Long.toString(toSeconds(decision.resetMillis())));
 
-        if (!allowed) {
+        if (!decision.allowed()) {
+            long retryAfter = toSeconds(decision.retryAfterMillis());
             httpResponse.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            httpResponse.setHeader("Retry-After", Long.toString(retryAfter));
             httpResponse.setContentType("application/json");
 
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("error", "Rate limit exceeded");
             errorResponse.put("message", "Too many requests. Please try again later.");
-            errorResponse.put("retryAfter", 60); // seconds
+            errorResponse.put("retryAfter", retryAfter); // seconds
 
             objectMapper.writeValue(httpResponse.getWriter(), errorResponse);
             return;
@@ -94,11 +98,32 @@ public class RateLimitingFilter implements Filter {
                 || path.startsWith("/images/");
     }
 
+    private static long toSeconds(long millis) {
+        return (millis + 999) / 1000;
+    }
+
+    /**
+     * The peer address, unless the peer is a trusted proxy: then the last
+     * X-Forwarded-For hop not added by a trusted proxy. Hops further left are
+     * whatever the client sent and are never used.
+     */
     private String getClientIdentifier(HttpServletRequest request) {
+        String client = request.getRemoteAddr();
         String xForwardedFor = request.getHeader("X-Forwarded-For");
-        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            return xForwardedFor.split(",")[0].trim();
+        if (!trustedProxies.contains(client) || xForwardedFor == null || xForwardedFor.isEmpty()) {
+            return client;
+        }
+        String[] hops = xForwardedFor.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (hop.isEmpty()) {
+                continue;
+            }
+            client = hop;
+            if (!trustedProxies.contains(hop)) {
+                break;
+            }
         }
-        return request.getRemoteAddr();
+        return client;
     }
 }
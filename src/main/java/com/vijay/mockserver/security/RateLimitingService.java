@@ -1,73 +1,124 @@
 package com.vijay.mockserver.security;
 
-import com.google.common.util.concurrent.RateLimiter;
 import com.vijay.mockserver.user.User;
+import com.vijay.mockserver.user.UserIdentity;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class RateLimitingService {
 
-    private final Map<String, RateLimiter> rateLimiters = new ConcurrentHashMap<>();
+    private final TokenBucketLimiter limiter;
+    private final int ipRequestsPerMinute;
+    private final ScheduledExecutorService sweeper;
+
+    public RateLimitingService(@Value("${app.rate-limit.ip-per-minute:60}") int ipRequestsPerMinute,
+                               @Value("${app.rate-limit.max-keys:100000}") int maxKeys,
+                               @Value("${app.rate-limit.sweep-interval-ms:30000}") long sweepIntervalMs,
+                               MeterRegistry registry) {
+        this.limiter = new TokenBucketLimiter(maxKeys);
+        this.ipRequestsPerMinute = ipRequestsPerMinute;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "rate-limit-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Buckets refill within a minute, so idle keys are dropped long before their tick wraps
+        this.sweeper.scheduleWithFixedDelay(limiter::sweep, sweepIntervalMs, sweepIntervalMs, TimeUnit.MILLISECONDS);
+        Gauge.builder("ratelimit.buckets", limiter, TokenBucketLimiter::size)
+                .description("Active rate limit buckets").register(registry);
+        FunctionCounter.builder("ratelimit.evictions", limiter, TokenBucketLimiter::evictions)
+                .description("Buckets evicted to make room at app.rate-limit.max-keys").register(registry);
+    }
+
+    /**
+     * Take a token for the given authenticated caller
+     */
+    public RateLimitDecision tryAcquire(UserIdentity identity) {
+        return limiter.tryAcquire(userKey(identity.getId()), identity.getRateLimitPerMinute());
+    }
+
+    /**
+     * Take a token for the given IP
+     */
+    public RateLimitDecision tryAcquire(String ipAddress) {
+        return limiter.tryAcquire(ipKey(ipAddress), ipRequestsPerMinute);
+    }
 
     /**
      * Check if request is allowed for the given user
      */
     public boolean isAllowed(User user) {
-        String key = "user:" + user.getId();
-        RateLimiter rateLimiter = getRateLimiter(key, user.getRateLimitPerMinute());
-        return rateLimiter.tryAcquire();
+        return limiter.tryAcquire(userKey(user.getId()), user.getRateLimitPerMinute()).allowed();
+    }
+
+    /**
+     * Check if request is allowed for the given authenticated caller
+     */
+    public boolean isAllowed(UserIdentity identity) {
+        return tryAcquire(identity).allowed();
     }
 
     /**
      * Check if request is allowed for the given IP
      */
     public boolean isAllowed(String ipAddress) {
-        String key = "ip:" + ipAddress;
-        RateLimiter rateLimiter = getRateLimiter(key, 60); // Default 60 requests per minute for IP
-        return rateLimiter.tryAcquire();
+        return tryAcquire(ipAddress).allowed();
     }
 
     /**
-     * Get remaining tokens for user (simplified)
+     * Current bucket state for user, without consuming a token
      */
-    public long getRemainingTokens(User user) {
-        // Guava RateLimiter doesn't provide remaining tokens directly
-        // Return a simple estimate based on rate
-        return user.getRateLimitPerMinute();
+    public RateLimitDecision getStatus(User user) {
+        return limiter.peek(userKey(user.getId()), user.getRateLimitPerMinute());
     }
 
     /**
-     * Get remaining tokens for IP (simplified)
+     * Get remaining tokens for user
      */
-    public long getRemainingTokens(String ipAddress) {
-        // Guava RateLimiter doesn't provide remaining tokens directly
-        return 60; // Default rate
+    public long getRemainingTokens(User user) {
+        return getStatus(user).remaining();
     }
 
-    private RateLimiter getRateLimiter(String key, int requestsPerMinute) {
-        return rateLimiters.computeIfAbsent(key, k -> {
-            // Convert requests per minute to requests per second
-            double permitsPerSecond = requestsPerMinute / 60.0;
-            return RateLimiter.create(permitsPerSecond);
-        });
+    /**
+     * Get remaining tokens for IP
+     */
+    public long getRemainingTokens(String ipAddress) {
+        return limiter.peek(ipKey(ipAddress), ipRequestsPerMinute).remaining();
     }
 
     /**
      * Reset rate limit for user (admin function)
      */
     public void resetRateLimit(User user) {
-        String key = "user:" + user.getId();
-        rateLimiters.remove(key);
+        limiter.reset(userKey(user.getId()));
     }
 
     /**
      * Reset rate limit for IP (admin function)
      */
     public void resetRateLimit(String ipAddress) {
-        String key = "ip:" + ipAddress;
-        rateLimiters.remove(key);
+        limiter.reset(ipKey(ipAddress));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+    }
+
+    private static String userKey(Long userId) {
+        return "user:" + userId;
+    }
+
+    private static String ipKey(String ipAddress) {
+        return "ip:" + ipAddress;
     }
 }
@@ -1,6 +1,7 @@
 package com.vijay.mockserver.security;
 
 import com.vijay.mockserver.user.User;
+import com.vijay.mockserver.user.UserIdentity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -48,7 +49,14 @@ public class RoleBasedAccessService {
      * Check if user can perform admin operations
      */
     public boolean canPerformAdminOperations(User user) {
-        return user.getRole() == User.Role.ADMIN || user.getRole() == User.Role.SUPER_ADMIN;
+        return isAdminRole(user.getRole());
+    }
+
+    /**
+     * Check if the cached identity of a caller can perform admin operations
+     */
+    public boolean canPerformAdminOperations(UserIdentity identity) {
+        return isAdminRole(identity.getRole());
     }
 
     /**
@@ -57,4 +65,8 @@ public class RoleBasedAccessService {
     public boolean canManageUsers(User user) {
         return user.getRole() == User.Role.SUPER_ADMIN;
     }
+
+    private static boolean isAdminRole(User.Role role) {
+        return role == User.Role.ADMIN || role == User.Role.SUPER_ADMIN;
+    }
 }
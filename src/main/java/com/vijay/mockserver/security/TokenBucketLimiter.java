@@ -0,0 +1,205 @@
+package com.vijay.mockserver.security;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token buckets keyed by string, each holding its whole state in one
+ * {@code long} that is updated with CAS: the high 32 bits are the token level
+ * in milli-tokens, the low 32 bits the microsecond tick of the last refill
+ * (unsigned, wrapping every ~71 minutes). A bucket's capacity is its
+ * per-minute limit and it refills continuously at that rate.
+ * <p>
+ * The number of keys is capped so rotating client IPs cannot grow the map
+ * without bound. A new key beyond the cap evicts the fullest of a few sampled
+ * buckets, i.e. the one idle longest relative to its rate; an evicted key just
+ * starts over with a full bucket, so the cap never makes unrelated callers
+ * share a quota. {@link #sweep()} drops buckets that have refilled
+ * completely, which is indistinguishable from recreating them, and must run
+ * well within the tick wrap period.
+ */
+final class TokenBucketLimiter {
+
+    /** Largest per-minute limit whose milli-token level fits in 31 bits. */
+    static final int MAX_CAPACITY = Integer.MAX_VALUE / 1000;
+
+    private static final long MILLI = 1000;
+    private static final long MICROS_PER_MINUTE = 60_000_000L;
+    // milli-tokens per microsecond = capacity * MILLI / MICROS_PER_MINUTE = capacity / REFILL_DIVISOR
+    private static final long REFILL_DIVISOR = MICROS_PER_MINUTE / MILLI;
+    // Buckets looked at to pick one to evict when the map is full
+    private static final int EVICTION_SAMPLE = 16;
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final LongAdder evictions = new LongAdder();
+    private final int maxKeys;
+    private final long originNanos = System.nanoTime();
+
+    TokenBucketLimiter(int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Take one token from the bucket of {@code key}, creating it full if absent.
+     */
+    RateLimitDecision tryAcquire(String key, int limitPerMinute) {
+        int capacity = clamp(limitPerMinute);
+        int now = tick();
+        Bucket bucket = bucket(key, capacity, now);
+        while (true) {
+            long state = bucket.state;
+            long level = refilledLevel(state, capacity, now);
+            int refillTick = refilledTick(state, capacity, now, level);
+            if (level < MILLI) {
+                // Denied: leave the state alone, the refill is recomputed on the next call
+                return decision(false, capacity, level);
+            }
+            long next = pack(level - MILLI, refillTick);
+            if (Bucket.STATE.compareAndSet(bucket, state, next)) {
+                return decision(true, capacity, level - MILLI);
+            }
+        }
+    }
+
+    /**
+     * Current state of the bucket of {@code key} without taking a token.
+     */
+    RateLimitDecision peek(String key, int limitPerMinute) {
+        int capacity = clamp(limitPerMinute);
+        Bucket bucket = buckets.get(key);
+        if (bucket == null || bucket.capacity != capacity) {
+            return decision(true, capacity, capacity * MILLI);
+        }
+        long level = refilledLevel(bucket.state, capacity, tick());
+        return decision(level >= MILLI, capacity, level);
+    }
+
+    void reset(String key) {
+        buckets.remove(key);
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    long evictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Evict full buckets.
+     */
+    void sweep() {
+        int now = tick();
+        buckets.forEach((key, bucket) -> {
+            if (refilledLevel(bucket.state, bucket.capacity, now) == bucket.capacity * MILLI) {
+                buckets.remove(key, bucket);
+            }
+        });
+    }
+
+    private Bucket bucket(String key, int capacity, int now) {
+        Bucket bucket = buckets.get(key);
+        if (bucket != null && bucket.capacity == capacity) {
+            return bucket;
+        }
+        if (bucket == null && buckets.size() >= maxKeys) {
+            evictOne(now);
+        }
+        // Absent, or the limit changed: start a full bucket at the new capacity
+        return buckets.compute(key, (k, existing) ->
+                existing != null && existing.capacity == capacity ? existing : new Bucket(capacity, now));
+    }
+
+    /**
+     * Remove the fullest of the first few buckets, relative to capacity.
+     */
+    private void evictOne(int now) {
+        String victim = null;
+        Bucket victimBucket = null;
+        double fullest = -1;
+        Iterator<Map.Entry<String, Bucket>> it = buckets.entrySet().iterator();
+        for (int i = 0; i < EVICTION_SAMPLE && it.hasNext(); i++) {
+            Map.Entry<String, Bucket> entry = it.next();
+            Bucket candidate = entry.getValue();
+            double fill = (double) refilledLevel(candidate.state, candidate.capacity, now) / (candidate.capacity * MILLI);
+            if (fill > fullest) {
+                fullest = fill;
+                victim = entry.getKey();
+                victimBucket = candidate;
+            }
+        }
+        if (victim != null && buckets.remove(victim, victimBucket)) {
+            evictions.increment();
+        }
+    }
+
+    private static long refilledLevel(long state, int capacity, int now) {
+        long full = capacity * MILLI;
+        long level = state >>> 32;
+        long elapsed = Integer.toUnsignedLong(now - (int) state);
+        long added = elapsed * capacity / REFILL_DIVISOR;
+        return Math.min(full, level + added);
+    }
+
+    /**
+     * Advance the refill tick only by the time that produced whole milli-tokens,
+     * so frequent calls do not lose fractional refill.
+     */
+    private static int refilledTick(long state, int capacity, int now, long level) {
+        if (level == capacity * MILLI) {
+            return now;
+        }
+        long added = level - (state >>> 32);
+        return (int) state + (int) (added * REFILL_DIVISOR / capacity);
+    }
+
+    private static RateLimitDecision decision(boolean allowed, int capacity, long level) {
+        long missingForOne = Math.max(0, MILLI - level);
+        long retryAfterMicros = ceilDiv(missingForOne * REFILL_DIVISOR, capacity);
+        long resetMicros = ceilDiv((capacity * MILLI - level) * REFILL_DIVISOR, capacity);
+        return new RateLimitDecision(allowed, capacity, level / MILLI,
+                allowed ? 0 : ceilDiv(retryAfterMicros, 1000), ceilDiv(resetMicros, 1000));
+    }
+
+    private static long ceilDiv(long a, long b) {
+        return (a + b - 1) / b;
+    }
+
+    private static long pack(long level, int tick) {
+        return (level << 32) | Integer.toUnsignedLong(tick);
+    }
+
+    private static int clamp(int limitPerMinute) {
+        return Math.max(1, Math.min(MAX_CAPACITY, limitPerMinute));
+    }
+
+    private int tick() {
+        return (int) ((System.nanoTime() - originNanos) / 1000);
+    }
+
+    private static final class Bucket {
+
+        static final VarHandle STATE;
+
+        static {
+            try {
+                STATE = MethodHandles.lookup().findVarHandle(Bucket.class, "state", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        final int capacity;
+        volatile long state;
+
+        Bucket(int capacity, int now) {
+            this.capacity = capacity;
+            this.state = pack(capacity * MILLI, now);
+        }
+    }
+}
@@ -1,23 +1,32 @@
 package com.vijay.mockserver.seed;
 
 import com.vijay.mockserver.mock.MockEndpoint;
+import com.vijay.mockserver.mock.MockEndpointHeads;
 import com.vijay.mockserver.mock.MockEndpointRepository;
+import com.vijay.mockserver.mock.ResponseBodyStore;
 import com.vijay.mockserver.user.User;
 import com.vijay.mockserver.user.UserRepository;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Component
 public class DataSeeder implements CommandLineRunner {
 
     private final UserRepository userRepository;
     private final MockEndpointRepository mockEndpointRepository;
+    private final MockEndpointHeads heads;
+    private final ResponseBodyStore bodies;
     private final PasswordEncoder passwordEncoder;
 
-    public DataSeeder(UserRepository userRepository, MockEndpointRepository mockEndpointRepository, PasswordEncoder passwordEncoder) {
+    public DataSeeder(UserRepository userRepository, MockEndpointRepository mockEndpointRepository,
+            MockEndpointHeads heads, ResponseBodyStore bodies, PasswordEncoder passwordEncoder) {
         this.userRepository = userRepository;
         this.mockEndpointRepository = mockEndpointRepository;
+        this.heads = heads;
+        this.bodies = bodies;
         this.passwordEncoder = passwordEncoder;
     }
 
@@ -26,6 +35,8 @@ public class DataSeeder implements CommandLineRunner {
         if (userRepository.count() == 0) {
             seedUsers();
             seedMockEndpoints();
+            // Rows are saved directly, so they still need heads to be served
+            heads.backfill();
         }
     }
 
@@ -81,7 +92,7 @@ public class DataSeeder implements CommandLineRunner {
               "createdAt": "{{date}}",
               "status": "created"
             }
-            """, "{\"Content-Type\": \"application/json\"}", null, "{\"name\": \".+\", \"email\": \".+@.+\\\\..+\"}", 5, true);
+            """, "{\"Content-Type\": \"application/json\"}", null, "{\"name\": \"regex:.+\", \"email\": \"regex:.+@.+\\\\..+\"}", 5, true);
 
         // Developer's mocks
         createMockEndpoint(developer, "/api/products", "GET", 200, 0, """
@@ -103,7 +114,7 @@ public class DataSeeder implements CommandLineRunner {
               "createdAt": "{{date}}",
               "sku": "SKU-{{randomString 8}}"
             }
-            """, "{\"Content-Type\": \"application/json\"}", null, "{\"name\": \".+\", \"price\": \"\\\\d+\\\\.\\\\d+\"}", 0, true);
+            """, "{\"Content-Type\": \"application/json\"}", null, "{\"name\": \"regex:.+\", \"price\": \"regex:\\\\d+\\\\.\\\\d+\"}", 0, true);
 
         createMockEndpoint(developer, "/api/orders", "GET", 200, 0, """
             {
@@ -127,7 +138,7 @@ public class DataSeeder implements CommandLineRunner {
               "expiresIn": 3600,
               "timestamp": {{timestamp}}
             }
-            """, "{\"Content-Type\": \"application/json\"}", null, "{\"username\": \".+\", \"password\": \".+\"}", 0, true);
+            """, "{\"Content-Type\": \"application/json\"}", null, "{\"username\": \"regex:.+\", \"password\": \"regex:.+\"}", 0, true);
 
         createMockEndpoint(tester, "/api/auth/register", "POST", 201, 300, """
             {
@@ -137,7 +148,7 @@ public class DataSeeder implements CommandLineRunner {
               "createdAt": "{{date}}",
               "status": "active"
             }
-            """, "{\"Content-Type\": \"application/json\"}", null, "{\"username\": \".+\", \"email\": \".+@.+\\\\..+\", \"password\": \".+\"}", 0, true);
+            """, "{\"Content-Type\": \"application/json\"}", null, "{\"username\": \"regex:.+\", \"email\": \"regex:.+@.+\\\\..+\", \"password\": \"regex:.+\"}", 0, true);
 
         createMockEndpoint(tester, "/api/health", "GET", 200, 0, """
             {
@@ -209,6 +220,7 @@ public class DataSeeder implements CommandLineRunner {
         mock.setPriority(priority);
         mock.setIsActive(isActive);
         mock.setVersion(1);
+        bodies.store(List.of(mock));
         mockEndpointRepository.save(mock);
     }
 }
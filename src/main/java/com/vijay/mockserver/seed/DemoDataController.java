@@ -1,7 +1,13 @@
 package com.vijay.mockserver.seed;
 
+import com.vijay.mockserver.mock.MockEndpointHeads;
 import com.vijay.mockserver.mock.MockEndpointRepository;
+import com.vijay.mockserver.mock.MockRouteTable;
+import com.vijay.mockserver.mock.MockSearchIndex;
+import com.vijay.mockserver.mock.ResponseBodyStore;
+import com.vijay.mockserver.user.UserChangedEvent;
 import com.vijay.mockserver.user.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -16,12 +22,24 @@ public class DemoDataController {
 
     private final UserRepository userRepository;
     private final MockEndpointRepository mockEndpointRepository;
+    private final MockEndpointHeads heads;
+    private final ResponseBodyStore bodies;
     private final DataSeeder dataSeeder;
+    private final MockRouteTable routeTable;
+    private final MockSearchIndex searchIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public DemoDataController(UserRepository userRepository, MockEndpointRepository mockEndpointRepository, DataSeeder dataSeeder) {
+    public DemoDataController(UserRepository userRepository, MockEndpointRepository mockEndpointRepository,
+            MockEndpointHeads heads, ResponseBodyStore bodies, DataSeeder dataSeeder, MockRouteTable routeTable,
+            MockSearchIndex searchIndex, ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.mockEndpointRepository = mockEndpointRepository;
+        this.heads = heads;
+        this.bodies = bodies;
         this.dataSeeder = dataSeeder;
+        this.routeTable = routeTable;
+        this.searchIndex = searchIndex;
+        this.eventPublisher = eventPublisher;
     }
 
     @PostMapping("/seed")
@@ -34,11 +52,16 @@ public class DemoDataController {
             }
 
             // Clear existing data
+            heads.deleteAll();
             mockEndpointRepository.deleteAll();
+            bodies.deleteAll();
             userRepository.deleteAll();
 
             // Seed new data
             dataSeeder.run();
+            routeTable.invalidateAll();
+            searchIndex.invalidateAll();
+            eventPublisher.publishEvent(UserChangedEvent.all());
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Demo data seeded successfully");
@@ -75,8 +98,13 @@ public class DemoDataController {
             }
 
             // Clear all data
+            heads.deleteAll();
             mockEndpointRepository.deleteAll();
+            bodies.deleteAll();
             userRepository.deleteAll();
+            routeTable.invalidateAll();
+            searchIndex.invalidateAll();
+            eventPublisher.publishEvent(UserChangedEvent.all());
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "All demo data cleared");
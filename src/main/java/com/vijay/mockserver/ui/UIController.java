@@ -1,23 +1,32 @@
 package com.vijay.mockserver.ui;
 
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
 
 @Controller
 public class UIController {
 
+    // Plain HTML; there is no view engine on the classpath to resolve "console"
+    private static final Resource CONSOLE = new ClassPathResource("templates/console.html");
+
     @GetMapping("/")
     public String index() {
         return "redirect:/console";
     }
 
-    @GetMapping("/console")
-    public String console() {
-        return "console";
+    @GetMapping(value = "/console", produces = MediaType.TEXT_HTML_VALUE)
+    @ResponseBody
+    public Resource console() {
+        return CONSOLE;
     }
 
-    @GetMapping("/console/**")
-    public String consoleRoutes() {
-        return "console";
+    @GetMapping(value = "/console/**", produces = MediaType.TEXT_HTML_VALUE)
+    @ResponseBody
+    public Resource consoleRoutes() {
+        return CONSOLE;
     }
 }
@@ -0,0 +1,16 @@
+package com.vijay.mockserver.user;
+
+/**
+ * Published when a user's role, rate limit or existence changed, so cached
+ * identities are dropped. A null username stands for every user.
+ */
+public record UserChangedEvent(Long userId, String username) {
+
+    public static UserChangedEvent all() {
+        return new UserChangedEvent(null, null);
+    }
+
+    public boolean isAll() {
+        return username == null;
+    }
+}
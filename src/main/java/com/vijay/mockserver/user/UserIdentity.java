@@ -0,0 +1,69 @@
+package com.vijay.mockserver.user;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * Immutable snapshot of the {@link User} columns needed to authenticate and
+ * authorize a request. Cached by {@link UserIdentityCache} and used as the
+ * security principal, so request handling does not re-read the users table.
+ */
+public final class UserIdentity implements UserDetails {
+
+    /**
+     * Request attribute holding the identity of the authenticated caller.
+     */
+    public static final String REQUEST_ATTRIBUTE = UserIdentity.class.getName();
+
+    private static final List<GrantedAuthority> AUTHORITIES = List.of(new SimpleGrantedAuthority("USER"));
+
+    private final Long id;
+    private final String username;
+    private final String passwordHash;
+    private final User.Role role;
+    private final int rateLimitPerMinute;
+
+    private UserIdentity(Long id, String username, String passwordHash, User.Role role, int rateLimitPerMinute) {
+        this.id = id;
+        this.username = username;
+        this.passwordHash = passwordHash;
+        this.role = role;
+        this.rateLimitPerMinute = rateLimitPerMinute;
+    }
+
+    public static UserIdentity from(User user) {
+        return new UserIdentity(user.getId(), user.getUsername(), user.getPassword(), user.getRole(),
+                user.getRateLimitPerMinute() != null ? user.getRateLimitPerMinute() : 100);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public String getPassword() {
+        return passwordHash;
+    }
+
+    public User.Role getRole() {
+        return role;
+    }
+
+    public int getRateLimitPerMinute() {
+        return rateLimitPerMinute;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return AUTHORITIES;
+    }
+}
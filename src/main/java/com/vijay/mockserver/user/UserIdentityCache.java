@@ -0,0 +1,87 @@
+package com.vijay.mockserver.user;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+
+/**
+ * Bounded, expiring cache of {@link UserIdentity} by username. Writes to a
+ * user's role, rate limit or password must publish a {@link UserChangedEvent}
+ * (or call {@link #invalidate}); the TTL bounds staleness for anything else
+ * (e.g. direct database edits).
+ */
+@Component
+public class UserIdentityCache {
+
+    private final UserRepository userRepository;
+    private final Cache<String, UserIdentity> cache;
+
+    public UserIdentityCache(UserRepository userRepository,
+            @Value("${app.user-cache.ttl:5m}") Duration ttl,
+            @Value("${app.user-cache.max-size:10000}") long maxSize,
+            MeterRegistry registry) {
+        this.userRepository = userRepository;
+        this.cache = CacheBuilder.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        // Exposes cache.gets{result=hit|miss}, cache.evictions, cache.size under /actuator/metrics
+        GuavaCacheMetrics.monitor(registry, cache, "users");
+    }
+
+    /**
+     * Identity of the given user, loading it on a miss. Unknown usernames are not cached.
+     */
+    public Optional<UserIdentity> find(String username) {
+        UserIdentity identity = cache.getIfPresent(username);
+        if (identity != null) {
+            return Optional.of(identity);
+        }
+        Optional<UserIdentity> loaded = userRepository.findByUsername(username).map(UserIdentity::from);
+        loaded.ifPresent(i -> cache.put(username, i));
+        return loaded;
+    }
+
+    /**
+     * Identity of the authenticated caller: the security principal when the
+     * JWT filter set one, otherwise looked up by name.
+     *
+     * @throws java.util.NoSuchElementException if there is no such user
+     */
+    public UserIdentity current() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth.getPrincipal() instanceof UserIdentity identity) {
+            return identity;
+        }
+        return find(auth.getName()).orElseThrow();
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.isAll()) {
+            invalidateAll();
+        } else {
+            invalidate(event.username());
+        }
+    }
+
+    public void invalidate(String username) {
+        cache.invalidate(username);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
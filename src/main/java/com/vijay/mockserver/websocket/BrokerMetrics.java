@@ -0,0 +1,121 @@
+package com.vijay.mockserver.websocket;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Meters of the STOMP broker's way out to clients, installed by
+ * {@link WebSocketConfig} on the client outbound channel and around the
+ * WebSocket handler:
+ * <ul>
+ * <li>{@code websocket.outbound.queued}: messages waiting for an outbound thread</li>
+ * <li>{@code websocket.outbound.latency}: from the broker handing a message
+ * over until it was written or buffered for its session</li>
+ * <li>{@code websocket.outbound.dropped}: messages whose session had already
+ * closed or been evicted</li>
+ * <li>{@code websocket.sessions.evicted}: sessions closed because their
+ * send buffer or send time limit was exceeded</li>
+ * </ul>
+ */
+@Component
+public class BrokerMetrics implements ExecutorChannelInterceptor, WebSocketHandlerDecoratorFactory {
+
+    private static final String QUEUED_AT = BrokerMetrics.class.getName() + ".queuedAt";
+
+    private final Map<String, Boolean> openSessions = new ConcurrentHashMap<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Timer latency;
+    private final Counter dropped;
+    private final Counter evicted;
+
+    public BrokerMetrics(MeterRegistry registry) {
+        this.latency = Timer.builder("websocket.outbound.latency")
+                .description("Time from broker hand-off until a message was sent or buffered for its session")
+                .register(registry);
+        this.dropped = Counter.builder("websocket.outbound.dropped")
+                .description("Outbound messages for sessions that were already closed").register(registry);
+        this.evicted = Counter.builder("websocket.sessions.evicted")
+                .description("Sessions closed for exceeding their send buffer or send time limit").register(registry);
+        Gauge.builder("websocket.outbound.queued", queued, AtomicInteger::get)
+                .description("Outbound messages waiting to be handled").register(registry);
+        Gauge.builder("websocket.sessions", openSessions, Map::size)
+                .description("Open WebSocket sessions").register(registry);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        // Broker messages leave their headers mutable until they are sent on
+        MessageHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, MessageHeaderAccessor.class);
+        if (accessor != null && accessor.isMutable()) {
+            accessor.setHeader(QUEUED_AT, System.nanoTime());
+        }
+        queued.incrementAndGet();
+        return message;
+    }
+
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        if (!sent || ex != null) {
+            queued.decrementAndGet(); // never reaches a handler
+        }
+    }
+
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId != null && !openSessions.containsKey(sessionId)) {
+            dropped.increment();
+        }
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler,
+            Exception ex) {
+        queued.decrementAndGet();
+        if (message.getHeaders().get(QUEUED_AT) instanceof Long queuedAt) {
+            latency.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                openSessions.put(session.getId(), Boolean.TRUE);
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
+                openSessions.remove(session.getId());
+                if (status.equalsCode(CloseStatus.SESSION_NOT_RELIABLE)) {
+                    evicted.increment();
+                }
+                super.afterConnectionClosed(session, status);
+            }
+        };
+    }
+}
@@ -0,0 +1,278 @@
+package com.vijay.mockserver.websocket;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import com.vijay.mockserver.journal.JournalEntry;
+import com.vijay.mockserver.journal.RingBuffer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Live view of the requests hitting a user's mocks. A session subscribes to
+ * {@code /user/topic/traffic} and may narrow the feed with SUBSCRIBE headers:
+ * <ul>
+ * <li>{@code sample}: fraction of requests to pass on, 0 to 1 (default 1)</li>
+ * <li>{@code method}: HTTP method</li>
+ * <li>{@code status}: a status code such as {@code 404}, or a class such as {@code 5xx}</li>
+ * <li>{@code route}: substring of the request path</li>
+ * </ul>
+ * Serving threads only filter and offer to each subscription's bounded
+ * queue; a full queue drops the request and counts it. One dispatcher sends
+ * each subscription what it queued every {@code app.traffic.flush-interval-ms},
+ * so a slow browser loses entries rather than slowing down serving.
+ */
+@Component
+public class LiveTrafficFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveTrafficFeed.class);
+
+    /** Subscribed to by clients as {@code /user/topic/traffic} */
+    static final String DESTINATION = "/topic/traffic";
+    private static final String USER_DESTINATION = "/user" + DESTINATION;
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final int queueSize;
+    private final long flushIntervalMs;
+    // username -> subscriptions; empty while nobody watches, which is all the serving path checks
+    private final Map<String, List<Subscription>> byUser = new ConcurrentHashMap<>();
+    private final Map<String, Subscription> byId = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService dispatcher;
+
+    private final Counter queued;
+    private final Counter dropped;
+    private final Counter batches;
+
+    public LiveTrafficFeed(SimpMessagingTemplate messagingTemplate,
+            @Value("${app.traffic.queue-size:1024}") int queueSize,
+            @Value("${app.traffic.flush-interval-ms:200}") long flushIntervalMs,
+            MeterRegistry registry) {
+        this.messagingTemplate = messagingTemplate;
+        this.queueSize = queueSize;
+        this.flushIntervalMs = Math.max(10, flushIntervalMs);
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "live-traffic-dispatcher");
+            t.setDaemon(true);
+            return t;
+        });
+        this.queued = Counter.builder("traffic.entries").tag("result", "queued")
+                .description("Requests queued for live traffic subscribers").register(registry);
+        this.dropped = Counter.builder("traffic.entries").tag("result", "dropped")
+                .description("Requests dropped because a subscriber's queue was full").register(registry);
+        this.batches = Counter.builder("traffic.batches")
+                .description("Live traffic messages sent to subscribers").register(registry);
+        Gauge.builder("traffic.subscriptions", byId, Map::size)
+                .description("Open live traffic subscriptions").register(registry);
+    }
+
+    /**
+     * Offer a served request to its owner's subscriptions. Called on the
+     * serving thread; never blocks.
+     */
+    public void publish(JournalEntry entry) {
+        if (byUser.isEmpty() || entry.username() == null) {
+            return;
+        }
+        List<Subscription> subscriptions = byUser.get(entry.username());
+        if (subscriptions == null) {
+            return;
+        }
+        for (Subscription subscription : subscriptions) {
+            if (!subscription.accepts(entry)) {
+                continue;
+            }
+            if (subscription.queue.offer(entry)) {
+                queued.increment();
+            } else {
+                subscription.dropped.incrementAndGet();
+                dropped.increment();
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        dispatcher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        dispatcher.shutdownNow();
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        Principal user = event.getUser();
+        if (user == null || !USER_DESTINATION.equals(headers.getDestination())) {
+            return;
+        }
+        Subscription subscription = new Subscription(user.getName(), headers.getSessionId(),
+                headers.getSubscriptionId(), headers, queueSize);
+        byId.put(subscription.key(), subscription);
+        byUser.computeIfAbsent(subscription.username, u -> new CopyOnWriteArrayList<>()).add(subscription);
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        remove(byId.get(headers.getSessionId() + "/" + headers.getSubscriptionId()));
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        String prefix = event.getSessionId() + "/";
+        byId.values().stream().filter(s -> s.key().startsWith(prefix)).toList().forEach(this::remove);
+    }
+
+    private void remove(Subscription subscription) {
+        if (subscription == null || !byId.remove(subscription.key(), subscription)) {
+            return;
+        }
+        byUser.computeIfPresent(subscription.username, (u, list) -> {
+            list.remove(subscription);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    private void flush() {
+        List<JournalEntry> entries = new ArrayList<>();
+        for (Subscription subscription : byId.values()) {
+            entries.clear();
+            subscription.queue.drain(entries, subscription.queue.capacity());
+            long lost = subscription.dropped.getAndSet(0);
+            if (entries.isEmpty() && lost == 0) {
+                continue;
+            }
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("entries", entries);
+            payload.put("dropped", lost);
+            payload.put("sample", subscription.sample);
+            try {
+                // Addressed to the subscribing session only, not every session of the user
+                messagingTemplate.convertAndSendToUser(subscription.username, DESTINATION, payload,
+                        subscription.headers());
+                batches.increment();
+            } catch (MessagingException e) {
+                log.warn("Failed to send live traffic to {}: {}", subscription.username, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * One subscribing session's filters and queue.
+     */
+    private static final class Subscription {
+
+        private final String username;
+        private final String sessionId;
+        private final String subscriptionId;
+        private final double sample;
+        private final String method;
+        private final int status;
+        private final int statusClass;
+        private final String route;
+        private final RingBuffer<JournalEntry> queue;
+        private final AtomicLong dropped = new AtomicLong();
+
+        Subscription(String username, String sessionId, String subscriptionId, SimpMessageHeaderAccessor subscribe,
+                int queueSize) {
+            this.username = username;
+            this.sessionId = sessionId;
+            this.subscriptionId = subscriptionId;
+            this.sample = parseSample(subscribe.getFirstNativeHeader("sample"));
+            String methodHeader = subscribe.getFirstNativeHeader("method");
+            this.method = methodHeader != null && !methodHeader.isBlank()
+                    ? methodHeader.trim().toUpperCase(Locale.ROOT) : null;
+            String statusHeader = subscribe.getFirstNativeHeader("status");
+            int[] parsed = parseStatus(statusHeader);
+            this.status = parsed[0];
+            this.statusClass = parsed[1];
+            String routeHeader = subscribe.getFirstNativeHeader("route");
+            this.route = routeHeader != null && !routeHeader.isBlank() ? routeHeader.trim() : null;
+            this.queue = new RingBuffer<>(queueSize);
+        }
+
+        String key() {
+            return sessionId + "/" + subscriptionId;
+        }
+
+        /**
+         * Headers that narrow a user destination to this session. Sending
+         * completes them, so each send needs its own.
+         */
+        MessageHeaders headers() {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setSessionId(sessionId);
+            accessor.setLeaveMutable(true);
+            return accessor.getMessageHeaders();
+        }
+
+        boolean accepts(JournalEntry entry) {
+            return (method == null || method.equals(entry.method()))
+                    && (status == 0 || status == entry.status())
+                    && (statusClass == 0 || statusClass == entry.status() / 100)
+                    && (route == null || entry.path().contains(route))
+                    && (sample >= 1 || ThreadLocalRandom.current().nextDouble() < sample);
+        }
+
+        private static double parseSample(String value) {
+            if (value == null || value.isBlank()) {
+                return 1;
+            }
+            try {
+                double sample = Double.parseDouble(value.trim());
+                return Double.isNaN(sample) ? 1 : Math.max(0, Math.min(1, sample));
+            } catch (NumberFormatException e) {
+                return 1;
+            }
+        }
+
+        /**
+         * @return {exact status or 0, status class or 0}; both 0 for no or an unreadable filter
+         */
+        private static int[] parseStatus(String value) {
+            if (value == null || value.isBlank()) {
+                return new int[2];
+            }
+            String trimmed = value.trim().toLowerCase(Locale.ROOT);
+            try {
+                if (trimmed.length() == 3 && trimmed.endsWith("xx")) {
+                    return new int[] { 0, Integer.parseInt(trimmed.substring(0, 1)) };
+                }
+                return new int[] { Integer.parseInt(trimmed), 0 };
+            } catch (NumberFormatException e) {
+                return new int[2];
+            }
+        }
+    }
+}
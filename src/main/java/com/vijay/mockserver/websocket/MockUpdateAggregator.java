@@ -0,0 +1,148 @@
+package com.vijay.mockserver.websocket;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.vijay.mockserver.mock.MockEndpointChangedEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Tells a user's consoles about changes to their mocks. Changes are collected
+ * per user and sent as one batch to {@value #DESTINATION} of that user only,
+ * {@code app.websocket.updates.interval-ms} after the first change of the
+ * batch, so a bulk import costs each console one message instead of one per
+ * row. A batch lists at most {@code app.websocket.updates.max-changes}
+ * changes; {@code counts} always covers all of them.
+ */
+@Component
+public class MockUpdateAggregator {
+
+    private static final Logger log = LoggerFactory.getLogger(MockUpdateAggregator.class);
+
+    /** Subscribed to by clients as {@code /user/queue/mock-updates} */
+    static final String DESTINATION = "/queue/mock-updates";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final long intervalMs;
+    private final int maxChanges;
+    private final Map<String, Batch> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    private final Counter received;
+    private final Counter sent;
+    private final Timer delays;
+
+    public MockUpdateAggregator(SimpMessagingTemplate messagingTemplate,
+            @Value("${app.websocket.updates.interval-ms:250}") long intervalMs,
+            @Value("${app.websocket.updates.max-changes:100}") int maxChanges,
+            MeterRegistry registry) {
+        this.messagingTemplate = messagingTemplate;
+        this.intervalMs = Math.max(0, intervalMs);
+        this.maxChanges = Math.max(0, maxChanges);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "mock-update-aggregator");
+            t.setDaemon(true);
+            return t;
+        });
+        this.received = Counter.builder("websocket.updates").tag("stage", "received")
+                .description("Mock changes to notify consoles about").register(registry);
+        this.sent = Counter.builder("websocket.updates").tag("stage", "batched")
+                .description("Batched change messages sent to users").register(registry);
+        this.delays = Timer.builder("websocket.updates.delay")
+                .description("Time from the first change of a batch until it was sent").register(registry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMockEndpointChanged(MockEndpointChangedEvent event) {
+        if (event.username() == null) {
+            return;
+        }
+        received.increment();
+        boolean[] opened = new boolean[1];
+        // Batches are only changed inside compute, which flush's remove() is atomic with
+        pending.compute(event.username(), (username, batch) -> {
+            if (batch == null) {
+                batch = new Batch();
+                opened[0] = true;
+            }
+            batch.add(event, maxChanges);
+            return batch;
+        });
+        if (opened[0]) {
+            scheduler.schedule(() -> flush(event.username()), intervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    private void flush(String username) {
+        Batch batch = pending.remove(username);
+        if (batch == null) {
+            return;
+        }
+        try {
+            messagingTemplate.convertAndSendToUser(username, DESTINATION, batch.toPayload(username));
+            sent.increment();
+            delays.record(System.nanoTime() - batch.openedNanos, TimeUnit.NANOSECONDS);
+        } catch (MessagingException e) {
+            log.warn("Failed to send mock updates to {}: {}", username, e.getMessage());
+        }
+    }
+
+    private static final class Batch {
+
+        private final long openedNanos = System.nanoTime();
+        private final long from = System.currentTimeMillis();
+        private final List<Map<String, Object>> changes = new ArrayList<>();
+        private final Map<String, Integer> counts = new LinkedHashMap<>();
+        private int total;
+
+        void add(MockEndpointChangedEvent event, int maxChanges) {
+            total++;
+            counts.merge(event.action(), 1, Integer::sum);
+            if (changes.size() < maxChanges) {
+                Map<String, Object> change = new LinkedHashMap<>();
+                change.put("action", event.action());
+                if (event.endpoint() != null) {
+                    change.put("endpoint", event.endpoint());
+                    change.put("method", event.method());
+                    change.put("version", event.version());
+                }
+                changes.add(change);
+            }
+        }
+
+        Map<String, Object> toPayload(String username) {
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("user", username);
+            payload.put("from", from);
+            payload.put("to", System.currentTimeMillis());
+            payload.put("total", total);
+            payload.put("counts", counts);
+            payload.put("changes", changes);
+            payload.put("truncated", total > changes.size());
+            return payload;
+        }
+    }
+}
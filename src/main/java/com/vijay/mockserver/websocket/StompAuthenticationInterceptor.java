@@ -0,0 +1,61 @@
+package com.vijay.mockserver.websocket;
+
+import java.util.Optional;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+
+import com.vijay.mockserver.security.JwtService;
+
+/**
+ * Authenticates STOMP sessions on CONNECT. Browsers cannot put an
+ * Authorization header on the /ws handshake, so the token may instead come
+ * as an {@code Authorization: Bearer ...} header of the CONNECT frame; it
+ * then becomes the session's user. A CONNECT with neither an authenticated
+ * handshake nor a valid token is rejected.
+ */
+@Component
+public class StompAuthenticationInterceptor implements ChannelInterceptor {
+
+    private static final String BEARER = "Bearer ";
+
+    private final JwtService jwtService;
+    private final UserDetailsService userDetailsService;
+
+    public StompAuthenticationInterceptor(JwtService jwtService, UserDetailsService userDetailsService) {
+        this.jwtService = jwtService;
+        this.userDetailsService = userDetailsService;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.CONNECT) {
+            return message;
+        }
+        String header = accessor.getFirstNativeHeader("Authorization");
+        if (header != null) {
+            if (!header.startsWith(BEARER)) {
+                throw new BadCredentialsException("Unsupported Authorization header");
+            }
+            Optional<JwtService.VerifiedToken> token = jwtService.verify(header.substring(BEARER.length()));
+            if (token.isEmpty()) {
+                throw new BadCredentialsException("Invalid or expired token");
+            }
+            UserDetails userDetails = userDetailsService.loadUserByUsername(token.get().username());
+            accessor.setUser(new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+        } else if (accessor.getUser() == null) {
+            throw new BadCredentialsException("Authentication required");
+        }
+        return message;
+    }
+}
@@ -1,23 +1,102 @@
 package com.vijay.mockserver.websocket;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.messaging.StompSubProtocolErrorHandler;
 
+/**
+ * STOMP over /ws. Per-user messages go to {@code /user/queue/...}. Each
+ * session buffers at most {@code app.websocket.send-buffer-size} of unsent
+ * messages and may spend at most {@code app.websocket.send-time-limit-ms} on
+ * one send; a client that falls further behind is disconnected instead of
+ * holding up the broker. Sessions authenticate either on the handshake or
+ * with a token on the CONNECT frame ({@link StompAuthenticationInterceptor}).
+ */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final boolean virtualThreads;
+    private final BrokerMetrics brokerMetrics;
+    private final StompAuthenticationInterceptor authenticationInterceptor;
+    private final DataSize sendBufferSize;
+    private final int sendTimeLimitMs;
+
+    public WebSocketConfig(Environment environment, BrokerMetrics brokerMetrics,
+            StompAuthenticationInterceptor authenticationInterceptor,
+            @Value("${app.websocket.send-buffer-size:256KB}") DataSize sendBufferSize,
+            @Value("${app.websocket.send-time-limit-ms:5000}") int sendTimeLimitMs) {
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+        this.brokerMetrics = brokerMetrics;
+        this.authenticationInterceptor = authenticationInterceptor;
+        this.sendBufferSize = sendBufferSize;
+        this.sendTimeLimitMs = sendTimeLimitMs;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic");
+        config.enableSimpleBroker("/topic", "/queue");
         config.setApplicationDestinationPrefixes("/app");
+        if (virtualThreads) {
+            // Unpooled executors no longer serialize sends per session on their own
+            config.setPreservePublishOrder(true);
+        }
     }
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws").setAllowedOriginPatterns("*").withSockJS();
+        registry.setErrorHandler(new StompSubProtocolErrorHandler() {
+            @Override
+            public Message<byte[]> handleClientMessageProcessingError(Message<byte[]> clientMessage, Throwable ex) {
+                // Tell the client why its CONNECT was refused, not which channel refused it
+                Throwable cause = ex.getCause() instanceof AuthenticationException ? ex.getCause() : ex;
+                return super.handleClientMessageProcessingError(clientMessage, cause);
+            }
+        });
+        if (virtualThreads) {
+            registry.setPreserveReceiveOrder(true);
+        }
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendBufferSizeLimit((int) Math.min(Integer.MAX_VALUE, sendBufferSize.toBytes()))
+                .setSendTimeLimit(sendTimeLimitMs)
+                .addDecoratorFactory(brokerMetrics);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(authenticationInterceptor);
+        if (virtualThreads) {
+            registration.executor(virtualExecutor("stomp-in-"));
+        }
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(brokerMetrics);
+        if (virtualThreads) {
+            registration.executor(virtualExecutor("stomp-out-"));
+        }
+    }
+
+    private static SimpleAsyncTaskExecutor virtualExecutor(String prefix) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(prefix);
+        executor.setVirtualThreads(true);
+        return executor;
     }
 }